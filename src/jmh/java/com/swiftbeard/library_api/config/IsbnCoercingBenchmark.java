@@ -0,0 +1,40 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.language.StringValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ISBN scalar is coerced once per ISBN argument and once per ISBN in every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IsbnCoercingBenchmark {
+
+    private final IsbnCoercing coercing = new IsbnCoercing();
+    private final Object isbn = 9780547928227L;
+    private final Object input = "978-0547928227";
+    private final Object literal = new StringValue("978-0547928227");
+
+    @Benchmark
+    public String serialize() {
+        return coercing.serialize(isbn);
+    }
+
+    @Benchmark
+    public Long parseValue() {
+        return coercing.parseValue(input);
+    }
+
+    @Benchmark
+    public Long parseLiteral() {
+        return coercing.parseLiteral(literal);
+    }
+}
@@ -0,0 +1,35 @@
+package com.swiftbeard.library_api.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of mutation inputs to entities, as done by BookController for every create and update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookMappingBenchmark {
+
+    private final BookInput input =
+            new BookInput("The Hobbit", "J.R.R. Tolkien", 9780547928227L, 1937, "Fantasy", null);
+
+    private final BookUpdateInput updateInput =
+            new BookUpdateInput(1L, "The Hobbit", null, null, null, null, false);
+
+    @Benchmark
+    public Book bookInputToBook() {
+        return input.toBook();
+    }
+
+    @Benchmark
+    public Book bookUpdateInputToBook() {
+        return updateInput.toBook();
+    }
+}
@@ -0,0 +1,38 @@
+package com.swiftbeard.library_api.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Isbn#parse(CharSequence)} against the regex that used to guard {@link Book#getIsbn()}, which only
+ * checked the format and never the check digit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IsbnBenchmark {
+
+    private static final Pattern FORMAT = Pattern.compile(
+            "^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$");
+
+    @Param({"978-0547928227", "9780547928227", "0-547-92822-X", "not-an-isbn"})
+    private String isbn;
+
+    @Benchmark
+    public long parse() {
+        return Isbn.parse(isbn);
+    }
+
+    @Benchmark
+    public boolean matchPattern() {
+        return FORMAT.matcher(isbn).matches();
+    }
+}
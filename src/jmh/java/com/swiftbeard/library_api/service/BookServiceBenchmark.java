@@ -0,0 +1,94 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.LibraryApiApplication;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.Isbn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService read paths against the embedded H2 database, with the full application context behind them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookServiceBenchmark {
+
+    @Param({"1000"})
+    private int bookCount;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookCache bookCache;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.r2dbc.url=r2dbc:h2:mem:///benchmark?options=DB_CLOSE_DELAY=-1",
+                        // Keep per-call logging out of the measurement
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.data.r2dbc=WARN",
+                        "logging.level.io.r2dbc=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        bookCache = context.getBean(BookCache.class);
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(Book.builder()
+                    .title("Benchmark Book " + i)
+                    .author("Author " + (i % 50))
+                    .isbn(Isbn.complete(978_000_000_000L + i))
+                    .publishYear(1950 + i % 70)
+                    .genre("Genre " + (i % 10))
+                    .build());
+        }
+        bookService.createBooks(books).block();
+        ids = bookService.getAllBooks().map(Book::getId).collectList().block()
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book getBookById() {
+        return bookService.getBookById(randomId()).block();
+    }
+
+    @Benchmark
+    public Book getBookByIdCacheMiss() {
+        long id = randomId();
+        bookCache.invalidate(id);
+        return bookService.getBookById(id).block();
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return bookService.getAllBooks().collectList().block();
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,207 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.exception.OverloadedException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that adapts to latency, additive increase and multiplicative decrease: every
+ * operation that completes within the latency threshold while the limit was in use raises it by
+ * {@code 1 / limit}, and an operation that is slower or fails lowers it by the backoff ratio, at most
+ * once per threshold so a burst of slow completions counts as one signal.
+ * <p>
+ * Operations over the limit wait in one bounded queue per priority and are admitted highest priority
+ * first. Operations of the lowest priority may only fill the list share of the limit. Anything that finds
+ * its queue full, or waits longer than the queue timeout, fails with {@link OverloadedException}.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    enum Priority {
+        MUTATION, QUERY, LIST
+    }
+
+    /**
+     * A slot taken by a running operation, to be given back once with the outcome
+     */
+    final class Permit {
+
+        private final long start = clock.getAsLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * The operation completed; its latency adjusts the limit
+         */
+        void success() {
+            release(true);
+        }
+
+        /**
+         * The operation failed; the limit is lowered
+         */
+        void failure() {
+            release(false);
+        }
+
+        /**
+         * The operation was abandoned before it completed; the limit is left as it is
+         */
+        void cancel() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(null, 0);
+            }
+        }
+
+        private void release(boolean succeeded) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(succeeded, clock.getAsLong() - start);
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private final LibraryProperties.Admission settings;
+    private final LongSupplier clock;
+    private final long latencyThreshold;
+    private final List<Deque<Waiter>> queues = new ArrayList<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    AdaptiveConcurrencyLimiter(LibraryProperties.Admission settings) {
+        this(settings, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(LibraryProperties.Admission settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        this.latencyThreshold = settings.getLatencyThreshold().toNanos();
+        this.limit = settings.getInitialLimit();
+        this.lastDecrease = clock.getAsLong() - latencyThreshold;
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @return a permit once the operation may run, or an {@link OverloadedException} if it may not
+     */
+    Mono<Permit> acquire(Priority priority) {
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(sink);
+                    Permit permit = null;
+                    boolean queued = false;
+                    synchronized (this) {
+                        if (queuedAhead(priority) == 0 && canAdmit(priority)) {
+                            inFlight++;
+                            permit = new Permit();
+                        } else if (queues.get(priority.ordinal()).size() < settings.getQueueSize()) {
+                            queues.get(priority.ordinal()).add(waiter);
+                            queued = true;
+                        }
+                    }
+                    if (permit != null) {
+                        sink.success(permit);
+                    } else if (queued) {
+                        sink.onCancel(() -> abandon(priority, waiter));
+                    } else {
+                        sink.error(new OverloadedException(OverloadedException.QUEUE_FULL,
+                                "Too many " + priority.name().toLowerCase() + " operations waiting, retry later"));
+                    }
+                })
+                .timeout(settings.getQueueTimeout(), Mono.error(() -> new OverloadedException(OverloadedException.TIMEOUT,
+                        "Timed out waiting to run the operation, retry later")));
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued(Priority priority) {
+        return queues.get(priority.ordinal()).size();
+    }
+
+    private boolean canAdmit(Priority priority) {
+        double share = priority == Priority.LIST ? settings.getListShare() : 1;
+        return inFlight < Math.max(1, (int) (limit * share));
+    }
+
+    private int queuedAhead(Priority priority) {
+        int queued = 0;
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            queued += queues.get(i).size();
+        }
+        return queued;
+    }
+
+    /**
+     * @param succeeded null if the operation was abandoned
+     */
+    private void release(Boolean succeeded, long latency) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            if (succeeded != null) {
+                adjust(succeeded, latency);
+            }
+            inFlight--;
+            for (Priority priority : Priority.values()) {
+                Deque<Waiter> queue = queues.get(priority.ordinal());
+                while (!queue.isEmpty() && canAdmit(priority)) {
+                    Waiter waiter = queue.poll();
+                    inFlight++;
+                    waiter.permit = new Permit();
+                    admitted.add(waiter);
+                }
+            }
+        }
+        for (Waiter waiter : admitted) {
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    private void adjust(boolean succeeded, long latency) {
+        if (!succeeded || latency > latencyThreshold) {
+            long now = clock.getAsLong();
+            if (now - lastDecrease >= latencyThreshold) {
+                limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+                lastDecrease = now;
+            }
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the limit is actually in use
+            limit = Math.min(settings.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    private void abandon(Priority priority, Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            if (queues.get(priority.ordinal()).remove(waiter)) {
+                return;
+            }
+            permit = waiter.permit;
+        }
+        // Admitted just as the wait was given up, so the slot is handed on
+        if (permit != null) {
+            permit.cancel();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.swiftbeard.library_api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftbeard.library_api.exception.OverloadedException;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLException;
+import graphql.GraphqlErrorBuilder;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Admits GraphQL operations through an {@link AdaptiveConcurrencyLimiter}, so a burst is shed at the door
+ * instead of queueing behind the connection pool until every request times out.
+ * <p>
+ * Mutations are admitted first, then queries, then queries with a paginated or list root field, which
+ * may only use part of the limit. Subscriptions are not limited. A rejected operation gets an error with
+ * the code {@code OVERLOADED}, {@code retryable: true} and a Retry-After header. Metrics:
+ * <ul>
+ *     <li>{@code graphql.admission.limit} and {@code graphql.admission.inflight} gauges</li>
+ *     <li>{@code graphql.admission.queued} gauge tagged {@code priority}</li>
+ *     <li>{@code graphql.admission.rejected} counter tagged {@code priority} and {@code reason}</li>
+ * </ul>
+ */
+public class AdmissionControlInterceptor implements WebGraphQlInterceptor {
+
+    static final String REJECTED_COUNTER = "graphql.admission.rejected";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Supplier<GraphQLSchema> schema;
+    private final MeterRegistry meterRegistry;
+    private final long retryAfterSeconds;
+    // Operation priorities by query text; subscriptions and documents that do not parse have none
+    private final Cache<String, Map<String, AdaptiveConcurrencyLimiter.Priority>> priorities;
+
+    public AdmissionControlInterceptor(LibraryProperties.Admission settings, long documentCacheSize,
+                                       Supplier<GraphQLSchema> schema, MeterRegistry meterRegistry) {
+        this(new AdaptiveConcurrencyLimiter(settings), settings, documentCacheSize, schema, meterRegistry);
+    }
+
+    AdmissionControlInterceptor(AdaptiveConcurrencyLimiter limiter, LibraryProperties.Admission settings,
+                                long documentCacheSize, Supplier<GraphQLSchema> schema, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.schema = schema;
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = Math.max(1, settings.getQueueTimeout().toSeconds());
+        this.priorities = Caffeine.newBuilder().maximumSize(documentCacheSize).build();
+
+        Gauge.builder("graphql.admission.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Operations currently allowed to run at once")
+                .register(meterRegistry);
+        Gauge.builder("graphql.admission.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Operations running")
+                .register(meterRegistry);
+        for (AdaptiveConcurrencyLimiter.Priority priority : AdaptiveConcurrencyLimiter.Priority.values()) {
+            Gauge.builder("graphql.admission.queued", limiter, l -> l.queued(priority))
+                    .description("Operations waiting to run")
+                    .tag("priority", tag(priority))
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        AdaptiveConcurrencyLimiter.Priority priority = priorities.get(request.getDocument(), this::classify)
+                .get(request.getOperationName() == null ? "" : request.getOperationName());
+        if (priority == null) {
+            return chain.next(request);
+        }
+        return Mono.usingWhen(limiter.acquire(priority),
+                        permit -> chain.next(request),
+                        permit -> Mono.fromRunnable(permit::success),
+                        (permit, error) -> Mono.fromRunnable(permit::failure),
+                        permit -> Mono.fromRunnable(permit::cancel))
+                .onErrorResume(OverloadedException.class, e -> Mono.just(rejected(request, priority, e)));
+    }
+
+    /**
+     * @return the priority of each query and mutation by operation name, with the only operation of a
+     * document also under the empty name
+     */
+    private Map<String, AdaptiveConcurrencyLimiter.Priority> classify(String query) {
+        Document document;
+        try {
+            document = Parser.parse(query);
+        } catch (GraphQLException e) {
+            // Fails in parsing, which is cheap, so it does not need a slot
+            return Map.of();
+        }
+        List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+        Map<String, AdaptiveConcurrencyLimiter.Priority> priorities = new HashMap<>();
+        for (OperationDefinition operation : operations) {
+            AdaptiveConcurrencyLimiter.Priority priority = switch (operation.getOperation()) {
+                case MUTATION -> AdaptiveConcurrencyLimiter.Priority.MUTATION;
+                case QUERY -> listsRootFields(operation)
+                        ? AdaptiveConcurrencyLimiter.Priority.LIST
+                        : AdaptiveConcurrencyLimiter.Priority.QUERY;
+                case SUBSCRIPTION -> null;
+            };
+            if (priority != null) {
+                if (operation.getName() != null) {
+                    priorities.put(operation.getName(), priority);
+                }
+                if (operations.size() == 1) {
+                    priorities.put("", priority);
+                }
+            }
+        }
+        return priorities;
+    }
+
+    private boolean listsRootFields(OperationDefinition operation) {
+        GraphQLObjectType queryType = schema.get().getQueryType();
+        for (Selection<?> selection : operation.getSelectionSet().getSelections()) {
+            if (selection instanceof Field field) {
+                GraphQLFieldDefinition definition = queryType.getFieldDefinition(field.getName());
+                if (definition != null && (definition.getArgument("first") != null
+                        || GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(definition.getType())))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private WebGraphQlResponse rejected(WebGraphQlRequest request, AdaptiveConcurrencyLimiter.Priority priority,
+                                        OverloadedException e) {
+        meterRegistry.counter(REJECTED_COUNTER, "priority", tag(priority), "reason", e.getReason()).increment();
+        WebGraphQlResponse response = new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(
+                request.toExecutionInput(),
+                ExecutionResultImpl.newExecutionResult()
+                        .addError(GraphqlErrorBuilder.newError()
+                                .message(e.getMessage())
+                                .extensions(Map.of(
+                                        "code", OverloadedException.CODE,
+                                        "retryable", true,
+                                        "retryAfterSeconds", retryAfterSeconds))
+                                .build())
+                        .build()));
+        response.getResponseHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response;
+    }
+
+    private static String tag(AdaptiveConcurrencyLimiter.Priority priority) {
+        return priority.name().toLowerCase();
+    }
+}
@@ -0,0 +1,204 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.model.Isbn;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the authors, genres and books tables with a synthetic catalog. The same settings always produce
+ * the same rows.
+ * <p>
+ * Books per author and per genre follow Zipf distributions, so a few authors and genres hold most of the
+ * catalog as they do in a real one, and most of an author's books share one genre. Publication years lean
+ * towards recent decades. Rows are written with batched inserts, one statement per batch.
+ * <p>
+ * Names and genres are chosen so they never match the books seeded by schema.sql, so tests can add a
+ * generated catalog next to their own rows and still find exactly those rows by author, genre or title.
+ */
+@Slf4j
+public class CatalogGenerator {
+
+    static final List<String> GENRES = List.of(
+            "Literary Fiction", "Mystery", "Romance", "Thriller", "Science Fiction", "Epic Fantasy",
+            "Historical Fiction", "Young Adult", "Biography", "History", "Self-Help", "Horror",
+            "Children's", "Business", "Memoir", "Popular Science", "True Crime", "Poetry", "Travel",
+            "Cooking", "Philosophy", "Graphic Novels", "Psychology", "Religion", "Art", "Humor");
+
+    private static final List<String> FIRST_NAMES = List.of(
+            "Ada", "Alan", "Amara", "Boris", "Camille", "Chen", "Dario", "Elena", "Emeka", "Farah", "Greta",
+            "Hiro", "Ines", "Ivan", "Jonas", "Kaia", "Lena", "Luis", "Mara", "Milo", "Nadia", "Omar", "Priya",
+            "Quinn", "Rosa", "Sami", "Tessa", "Ugo", "Vera", "Wen", "Yara", "Zoltan");
+
+    private static final List<String> LAST_NAMES = List.of(
+            "Abara", "Bergstrom", "Castellanos", "Dubois", "Eriksen", "Fairweather", "Galloway", "Haddad",
+            "Ishikawa", "Jovanovic", "Kowalczyk", "Lindqvist", "Marchetti", "Novak", "Okonkwo", "Petrov",
+            "Quintero", "Rasmussen", "Sandoval", "Takahashi", "Underwood", "Valdez", "Whitlock", "Xu",
+            "Yilmaz", "Zeller");
+
+    private static final List<String> ADJECTIVES = List.of(
+            "Silent", "Broken", "Golden", "Hidden", "Last", "Crimson", "Distant", "Forgotten", "Burning",
+            "Quiet", "Winter", "Hollow", "Secret", "Shattered", "Endless", "Northern", "Midnight", "Paper");
+
+    private static final List<String> NOUNS = List.of(
+            "River", "Kingdom", "Garden", "Harbor", "Mirror", "Orchard", "Lantern", "Compass", "Tide",
+            "Empire", "Letters", "Island", "Cartographer", "Archive", "Storm", "Bridge", "Atlas", "Clockmaker",
+            "Forest", "Signal");
+
+    private static final String INSERT_BOOKS = "INSERT INTO books "
+            + "(title, author, isbn, publish_year, genre, available, author_id, genre_id) "
+            + "VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+
+    // ISBNs use the 979 prefix, unlike the seeded books, and a stride coprime to 10^9 so they are unique
+    // but not in id order
+    private static final long ISBN_PREFIX = 979_000_000_000L;
+    private static final long ISBN_STRIDE = 999_999_937L;
+    private static final long ISBN_RANGE = 1_000_000_000L;
+
+    // Share of an author's books that are in the author's own genre
+    private static final int HOME_GENRE_PERCENT = 80;
+
+    private final DatabaseClient databaseClient;
+    private final LibraryProperties.Scale settings;
+
+    public CatalogGenerator(DatabaseClient databaseClient, LibraryProperties.Scale settings) {
+        this.databaseClient = databaseClient;
+        this.settings = settings;
+    }
+
+    /**
+     * Insert the catalog and refresh the table statistics the query planner uses.
+     *
+     * @return the number of books inserted
+     */
+    public Mono<Long> generate() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            SplittableRandom random = new SplittableRandom(settings.getSeed());
+            int authorCount = Math.max(1, settings.getAuthors());
+            ZipfDistribution authorRanks = new ZipfDistribution(authorCount, settings.getAuthorSkew());
+            ZipfDistribution genreRanks = new ZipfDistribution(GENRES.size(), settings.getGenreSkew());
+
+            // The most prolific authors are spread over the table rather than being the first ids
+            int[] authorByRank = shuffledIndexes(authorCount, random);
+            int[] homeGenre = new int[authorCount];
+            for (int author = 0; author < authorCount; author++) {
+                homeGenre[author] = genreRanks.sample(random);
+            }
+
+            return insertNames("authors", authorNames(authorCount))
+                    .zipWith(insertNames("genres", GENRES))
+                    .flatMap(ids -> Flux.range(0, (settings.getBooks() + settings.getBatchSize() - 1) / settings.getBatchSize())
+                            .concatMap(batch -> {
+                                int first = batch * settings.getBatchSize();
+                                int last = Math.min(settings.getBooks(), first + settings.getBatchSize());
+                                List<Object[]> rows = new ArrayList<>(last - first);
+                                for (int i = first; i < last; i++) {
+                                    int author = authorByRank[authorRanks.sample(random)];
+                                    int genre = random.nextInt(100) < HOME_GENRE_PERCENT
+                                            ? homeGenre[author]
+                                            : genreRanks.sample(random);
+                                    rows.add(new Object[]{
+                                            title(random),
+                                            authorName(author),
+                                            Isbn.complete(ISBN_PREFIX + (i * ISBN_STRIDE) % ISBN_RANGE),
+                                            1900 + (int) (125 * Math.pow(random.nextDouble(), 0.4)),
+                                            GENRES.get(genre),
+                                            random.nextInt(10) != 0,
+                                            ids.getT1().get(author),
+                                            ids.getT2().get(genre)});
+                                }
+                                return insertBooks(rows);
+                            })
+                            .reduce(0L, Long::sum))
+                    .flatMap(count -> databaseClient.sql("ANALYZE").then().thenReturn(count))
+                    .doOnSuccess(count -> log.info("Generated {} books by {} authors in {} ms", count, authorCount,
+                            (System.nanoTime() - start) / 1_000_000));
+        });
+    }
+
+    private Mono<List<Long>> insertNames(String table, List<String> names) {
+        return Flux.fromIterable(names)
+                .buffer(settings.getBatchSize())
+                .concatMap(batch -> databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement("INSERT INTO " + table + " (name) VALUES ($1)")
+                            .returnGeneratedValues("id");
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        statement.bind(0, batch.get(i));
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+                }))
+                .collectList();
+    }
+
+    private Mono<Long> insertBooks(List<Object[]> rows) {
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_BOOKS);
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Object[] row = rows.get(i);
+                        for (int column = 0; column < row.length; column++) {
+                            statement.bind(column, row[column]);
+                        }
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> Flux.from(result.getRowsUpdated()));
+                })
+                .reduce(0L, Long::sum);
+    }
+
+    private static List<String> authorNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int author = 0; author < count; author++) {
+            names.add(authorName(author));
+        }
+        return names;
+    }
+
+    /**
+     * Unique for every index: first and last name pairs, then the same pairs with a numeral.
+     */
+    static String authorName(int author) {
+        int pairs = FIRST_NAMES.size() * LAST_NAMES.size();
+        String name = FIRST_NAMES.get(author % FIRST_NAMES.size()) + " "
+                + LAST_NAMES.get(author / FIRST_NAMES.size() % LAST_NAMES.size());
+        return author < pairs ? name : name + " " + (author / pairs + 1);
+    }
+
+    private static String title(SplittableRandom random) {
+        String adjective = ADJECTIVES.get(random.nextInt(ADJECTIVES.size()));
+        String noun = NOUNS.get(random.nextInt(NOUNS.size()));
+        return switch (random.nextInt(4)) {
+            case 0 -> "The " + adjective + " " + noun;
+            case 1 -> noun + " of the " + adjective + " " + NOUNS.get(random.nextInt(NOUNS.size()));
+            case 2 -> "The " + noun + " " + (2 + random.nextInt(5));
+            default -> adjective + " " + noun;
+        };
+    }
+
+    private static int[] shuffledIndexes(int size, SplittableRandom random) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,31 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.controller.BookExportHandler;
+import com.swiftbeard.library_api.controller.BookImportHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Bulk catalog transfer, outside GraphQL so rows are streamed as they are read or parsed rather than
+ * collected into a single result
+ */
+@Configuration
+public class CatalogRouteConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> bookExportRoutes(BookExportHandler handler) {
+        return RouterFunctions.route()
+                .GET("/books/export", handler::export)
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> bookImportRoutes(BookImportHandler handler) {
+        return RouterFunctions.route()
+                .POST("/books/import", handler::importBooks)
+                .build();
+    }
+}
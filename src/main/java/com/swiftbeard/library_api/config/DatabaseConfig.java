@@ -1,17 +1,135 @@
 package com.swiftbeard.library_api.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
 
 @Configuration
 public class DatabaseConfig {
 
+    static final String POOL_NAME = "connectionFactory";
+    static final String REPLICA_POOL_NAME = "replicaConnectionFactory";
+
+    /**
+     * Pooled connections configured from the {@code spring.r2dbc.pool.*} properties. The pool is filled
+     * up to its initial size before the application starts serving, and connection acquisition is timed
+     * so the pool can be sized from the acquire latency histogram.
+     */
+    @Bean(destroyMethod = "dispose")
+    public MeteredConnectionFactory connectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry) {
+        return pooled(properties.getUrl(), properties.getUsername(), properties.getPassword(), properties.getPool(),
+                POOL_NAME, meterRegistry);
+    }
+
+    @Bean
+    public ConnectionFactoryInitializer initializer(@Qualifier(POOL_NAME) ConnectionFactory connectionFactory) {
+        return schemaInitializer(connectionFactory);
+    }
+
+    /**
+     * Under the {@code scale} profile, fill the primary with a generated catalog once the schema is in place
+     * and before the search index is built from it.
+     */
     @Bean
-    public ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory) {
+    @Profile("scale")
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ApplicationRunner catalogGenerator(@Qualifier(POOL_NAME) ConnectionFactory connectionFactory,
+                                              LibraryProperties properties) {
+        return args -> new CatalogGenerator(DatabaseClient.create(connectionFactory), properties.getScale())
+                .generate()
+                .block();
+    }
+
+    /**
+     * With {@code library.replica.url} set, reads outside transactions go to a second pool on the replica,
+     * sized by the same {@code spring.r2dbc.pool.*} properties as the primary, except for the client that
+     * just committed a write and for reads refilling a cache, see {@link ReadWriteRoutingConnectionFactory}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "library.replica", name = "url")
+    static class ReplicaConfig {
+
+        @Bean(destroyMethod = "dispose")
+        public MeteredConnectionFactory replicaConnectionFactory(R2dbcProperties r2dbcProperties,
+                                                                 LibraryProperties libraryProperties,
+                                                                 MeterRegistry meterRegistry) {
+            LibraryProperties.Replica replica = libraryProperties.getReplica();
+            return pooled(replica.getUrl(), replica.getUsername(), replica.getPassword(), r2dbcProperties.getPool(),
+                    REPLICA_POOL_NAME, meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        public ReadWriteRoutingConnectionFactory routingConnectionFactory(@Qualifier(POOL_NAME) ConnectionFactory primary,
+                                                                          @Qualifier(REPLICA_POOL_NAME) ConnectionFactory replica,
+                                                                          LibraryProperties libraryProperties) {
+            return new ReadWriteRoutingConnectionFactory(primary, replica,
+                    libraryProperties.getReplica().getReadYourWrites());
+        }
+
+        /**
+         * Replaces the auto-configured transaction manager, so the routing knows when writes have committed
+         */
+        @Bean
+        public ReadYourWritesTransactionManager transactionManager(ReadWriteRoutingConnectionFactory routing) {
+            return new ReadYourWritesTransactionManager(routing);
+        }
+
+        @Bean
+        public ReadYourWritesFilter readYourWritesFilter(ReadWriteRoutingConnectionFactory routing) {
+            return new ReadYourWritesFilter(routing.getReadYourWrites());
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "library.replica", name = "initialize-schema", havingValue = "true")
+        public ConnectionFactoryInitializer replicaInitializer(@Qualifier(REPLICA_POOL_NAME) ConnectionFactory replica) {
+            return schemaInitializer(replica);
+        }
+    }
+
+    static MeteredConnectionFactory pooled(String url, String username, String password, R2dbcProperties.Pool pool,
+                                           String name, MeterRegistry meterRegistry) {
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        ConnectionFactoryBuilder connectionFactoryBuilder = ConnectionFactoryBuilder.withUrl(url);
+        map.from(username).to(connectionFactoryBuilder::username);
+        map.from(password).to(connectionFactoryBuilder::password);
+        ConnectionFactory connectionFactory = connectionFactoryBuilder.build();
+
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .validationDepth(pool.getValidationDepth());
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+
+        ConnectionPool connectionPool = new ConnectionPool(builder.build());
+        connectionPool.warmup().block();
+        return new MeteredConnectionFactory(connectionPool, name, meterRegistry);
+    }
+
+    private static ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) {
         ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
         initializer.setConnectionFactory(connectionFactory);
         ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
@@ -1,13 +1,15 @@
 package com.swiftbeard.library_api.config;
 
-import graphql.language.StringValue;
-import graphql.schema.Coercing;
-import graphql.schema.CoercingParseLiteralException;
-import graphql.schema.CoercingParseValueException;
-import graphql.schema.CoercingSerializeException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import graphql.schema.GraphQLScalarType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.GraphQlSource;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
 @Configuration
@@ -22,32 +24,66 @@ public class GraphQLConfig {
                 .scalar(GraphQLScalarType.newScalar()
                         .name("ISBN")
                         .description("ISBN scalar type")
-                        .coercing(new Coercing<String, String>() {
-                            @Override
-                            public String serialize(Object dataFetcherResult) throws CoercingSerializeException {
-                                if (dataFetcherResult instanceof String) {
-                                    return (String) dataFetcherResult;
-                                }
-                                throw new CoercingSerializeException("Expected a String");
-                            }
-
-                            @Override
-                            public String parseValue(Object input) throws CoercingParseValueException {
-                                if (input instanceof String) {
-                                    return (String) input;
-                                }
-                                throw new CoercingParseValueException("Expected a String");
-                            }
-
-                            @Override
-                            public String parseLiteral(Object input) throws CoercingParseLiteralException {
-                                if (input instanceof StringValue) {
-                                    return ((StringValue) input).getValue();
-                                }
-                                throw new CoercingParseLiteralException("Expected a StringValue");
-                            }
-                        })
+                        .coercing(new IsbnCoercing())
                         .build());
     }
-}
 
+    /**
+     * Reuse parsed and validated documents across requests. Size and hit rate are exported as the
+     * {@code cache.*} metrics tagged {@code cache=graphql.documents}.
+     */
+    @Bean
+    public GraphQlSourceBuilderCustomizer documentCacheCustomizer(LibraryProperties properties,
+                                                                  MeterRegistry meterRegistry) {
+        GraphQLDocumentCache documentCache = new GraphQLDocumentCache(properties.getGraphql().getDocumentCacheSize());
+        CaffeineCacheMetrics.monitor(meterRegistry, documentCache.cache(), "graphql.documents");
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentCache));
+    }
+
+    @Bean
+    public ReadOnlyOperationInstrumentation readOnlyOperationInstrumentation() {
+        return new ReadOnlyOperationInstrumentation();
+    }
+
+    /**
+     * Reject operations that are too deep or too expensive before any data is fetched
+     */
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(LibraryProperties properties, MeterRegistry meterRegistry) {
+        return new QueryCostInstrumentation(meterRegistry, properties.getGraphql().getCost());
+    }
+
+    /**
+     * Keep serialized query responses until a book they read changes. Size and hit rate are exported as the
+     * {@code cache.*} metrics tagged {@code cache=graphql.responses}.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "library.graphql.response-cache", name = "enabled", matchIfMissing = true)
+    public GraphQLResponseCache graphQLResponseCache(LibraryProperties properties, ObjectProvider<ObjectMapper> objectMapper,
+                                                     MeterRegistry meterRegistry) {
+        LibraryProperties.Graphql graphql = properties.getGraphql();
+        GraphQLResponseCache responseCache = new GraphQLResponseCache(graphql.getResponseCache(),
+                graphql.getDocumentCacheSize(), objectMapper.getIfAvailable(ObjectMapper::new));
+        CaffeineCacheMetrics.monitor(meterRegistry, responseCache.cache(), "graphql.responses");
+        return responseCache;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.graphql.response-cache", name = "enabled", matchIfMissing = true)
+    public ResponseCacheTagInstrumentation responseCacheTagInstrumentation() {
+        return new ResponseCacheTagInstrumentation();
+    }
+
+    /**
+     * Limit how many operations run at once, adapting the limit to latency, and reject what cannot wait
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "library.graphql.admission", name = "enabled", matchIfMissing = true)
+    public AdmissionControlInterceptor admissionControlInterceptor(LibraryProperties properties,
+                                                                  ObjectProvider<GraphQlSource> graphQlSource,
+                                                                  MeterRegistry meterRegistry) {
+        LibraryProperties.Graphql graphql = properties.getGraphql();
+        return new AdmissionControlInterceptor(graphql.getAdmission(), graphql.getDocumentCacheSize(),
+                () -> graphQlSource.getObject().schema(), meterRegistry);
+    }
+}
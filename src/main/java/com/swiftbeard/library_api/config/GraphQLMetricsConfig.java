@@ -0,0 +1,28 @@
+package com.swiftbeard.library_api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GraphQLMetricsConfig {
+
+    /**
+     * Phase and data fetcher timings for every GraphQL request
+     */
+    @Bean
+    public GraphQLMetricsInstrumentation graphQLMetricsInstrumentation(MeterRegistry meterRegistry,
+                                                                       LibraryProperties properties) {
+        return new GraphQLMetricsInstrumentation(meterRegistry, properties.getGraphql().getTracingSampleRate());
+    }
+
+    /**
+     * Operation names come from clients, so cap how many end up as tag values
+     */
+    @Bean
+    public MeterFilter graphQLOperationTagLimit(LibraryProperties properties) {
+        return MeterFilter.maximumAllowableTags("graphql", "operation",
+                properties.getGraphql().getMaxOperationTags(), MeterFilter.deny());
+    }
+}
@@ -0,0 +1,202 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.validation.ValidationError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each request spends parsing, validating and executing, and how long each non-trivial
+ * data fetcher takes, as Micrometer timers tagged with the operation name:
+ * <ul>
+ *     <li>{@code graphql.phase} tagged {@code phase} = parse, validate or execute</li>
+ *     <li>{@code graphql.field} tagged {@code field} = Type.field and {@code outcome}</li>
+ * </ul>
+ * Property fetchers are skipped, so the unsampled cost is one small state object per request and a clock
+ * read around each controller or batch fetch. A sampled fraction of requests additionally gets an Apollo
+ * style {@code tracing} block in the response extensions, covering every field.
+ */
+public class GraphQLMetricsInstrumentation extends SimplePerformantInstrumentation {
+
+    static final String PHASE_TIMER = "graphql.phase";
+    static final String FIELD_TIMER = "graphql.field";
+    private static final String ANONYMOUS = "anonymous";
+
+    private final MeterRegistry meterRegistry;
+    private final double tracingSampleRate;
+
+    public GraphQLMetricsInstrumentation(MeterRegistry meterRegistry, double tracingSampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.tracingSampleRate = tracingSampleRate;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        boolean sampled = tracingSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < tracingSampleRate;
+        return new RequestState(parameters.getExecutionInput().getOperationName(), sampled);
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters,
+                                                       InstrumentationState state) {
+        RequestState request = (RequestState) state;
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((document, error) -> {
+            request.parseOffset = start - request.startNanos;
+            request.parseNanos = System.nanoTime() - start;
+        });
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters,
+                                                                         InstrumentationState state) {
+        RequestState request = (RequestState) state;
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((errors, error) -> {
+            request.validationOffset = start - request.startNanos;
+            request.validationNanos = System.nanoTime() - start;
+        });
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        RequestState request = (RequestState) state;
+        String name = parameters.getExecutionContext().getOperationDefinition().getName();
+        if (name != null) {
+            request.operation = name;
+        }
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((result, error) ->
+                request.executionNanos = System.nanoTime() - start);
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters,
+                                                          InstrumentationState state) {
+        RequestState request = (RequestState) state;
+        boolean timed = !parameters.isTrivialDataFetcher();
+        if (!timed && !request.sampled) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, error) -> {
+            long duration = System.nanoTime() - start;
+            ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+            String parentType = stepInfo.getObjectType().getName();
+            String fieldName = stepInfo.getFieldDefinition().getName();
+            if (timed) {
+                Timer.builder(FIELD_TIMER)
+                        .description("Time spent in GraphQL data fetchers")
+                        .tag("operation", request.operation)
+                        .tag("field", parentType + "." + fieldName)
+                        .tag("outcome", error == null ? "success" : "error")
+                        .register(meterRegistry)
+                        .record(duration, TimeUnit.NANOSECONDS);
+            }
+            if (request.sampled) {
+                Map<String, Object> resolver = new LinkedHashMap<>();
+                resolver.put("path", stepInfo.getPath().toList());
+                resolver.put("parentType", parentType);
+                resolver.put("fieldName", fieldName);
+                resolver.put("returnType", GraphQLTypeUtil.simplePrint(stepInfo.getType()));
+                resolver.put("startOffset", start - request.startNanos);
+                resolver.put("duration", duration);
+                request.resolvers.add(resolver);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        RequestState request = (RequestState) state;
+        recordPhase(request, "parse", request.parseNanos);
+        recordPhase(request, "validate", request.validationNanos);
+        recordPhase(request, "execute", request.executionNanos);
+        if (!request.sampled) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (executionResult.getExtensions() != null) {
+            extensions.putAll(executionResult.getExtensions());
+        }
+        extensions.put("tracing", tracing(request));
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+                .from(executionResult)
+                .extensions(extensions)
+                .build());
+    }
+
+    private void recordPhase(RequestState request, String phase, long nanos) {
+        // A phase that did not run, e.g. parsing a cached document, is left out rather than recorded as 0
+        if (nanos < 0) {
+            return;
+        }
+        Timer.builder(PHASE_TIMER)
+                .description("Time spent in each phase of GraphQL request processing")
+                .tag("operation", request.operation)
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Map<String, Object> tracing(RequestState request) {
+        long duration = System.nanoTime() - request.startNanos;
+        Map<String, Object> tracing = new LinkedHashMap<>();
+        tracing.put("version", 1);
+        tracing.put("startTime", request.startTime.toString());
+        tracing.put("endTime", request.startTime.plusNanos(duration).toString());
+        tracing.put("duration", duration);
+        tracing.put("parsing", Map.of("startOffset", Math.max(request.parseOffset, 0),
+                "duration", Math.max(request.parseNanos, 0)));
+        tracing.put("validation", Map.of("startOffset", Math.max(request.validationOffset, 0),
+                "duration", Math.max(request.validationNanos, 0)));
+        tracing.put("execution", Map.of("resolvers", List.copyOf(request.resolvers)));
+        return tracing;
+    }
+
+    private static final class RequestState implements InstrumentationState {
+        private final long startNanos = System.nanoTime();
+        private final boolean sampled;
+        private final Instant startTime;
+        private final Queue<Map<String, Object>> resolvers = new ConcurrentLinkedQueue<>();
+        private volatile String operation;
+        private volatile long parseOffset = -1;
+        private volatile long parseNanos = -1;
+        private volatile long validationOffset = -1;
+        private volatile long validationNanos = -1;
+        private volatile long executionNanos = -1;
+
+        private RequestState(String operationName, boolean sampled) {
+            this.operation = operationName != null ? operationName : ANONYMOUS;
+            this.sampled = sampled;
+            this.startTime = sampled ? Instant.now() : null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.swiftbeard.library_api.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.service.BookChangeListener;
+import com.swiftbeard.library_api.service.BookTags;
+import graphql.GraphQLException;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized responses of query operations, keyed by the normalized document, the operation name and the
+ * variables, so a repeated operation skips both execution and JSON encoding.
+ * <p>
+ * Each entry carries the tags collected while it was executed by {@link ResponseCacheTagInstrumentation}.
+ * A committed book change evicts the entries tagged with its id, ISBN, genre and author, and every
+ * catalog-wide listing. A response whose execution overlapped the eviction of one of its own tags is not
+ * stored, since it may have read the data from before the change; changes to anything else do not stop it.
+ * <p>
+ * Entries are bounded by bytes, with every entry weighing at least {@code maximumSize / maximumEntries}
+ * so the entry count stays bounded too.
+ */
+public class GraphQLResponseCache implements BookChangeListener {
+
+    /**
+     * GraphQL context key of the set that collects the tags of the response being executed
+     */
+    public static final String TAGS = GraphQLResponseCache.class.getName() + ".tags";
+
+    /**
+     * How many recently evicted tags are remembered for responses still executing
+     */
+    static final int RECENT_INVALIDATIONS = 10_000;
+
+    private record Normalized(String hash, Map<String, OperationDefinition.Operation> operations) {
+
+        static final Normalized INVALID = new Normalized(null, Map.of());
+    }
+
+    /**
+     * A serialized response and its strong entity tag
+     */
+    public record CachedResponse(byte[] body, String etag) {
+    }
+
+    private record Entry(CachedResponse response, Set<String> tags) {
+    }
+
+    private final Cache<String, Normalized> documents;
+    private final Cache<String, Entry> responses;
+    // Entries by tag and key; an index record is only removed together with the entry it was added for,
+    // so the removal of a replaced entry cannot drop the record of its replacement
+    private final Map<String, Map<String, Entry>> entriesByTag = new ConcurrentHashMap<>();
+    private final ObjectWriter variablesWriter;
+    // Version of the last eviction of each recently evicted tag, oldest first
+    private final LinkedHashMap<String, Long> invalidations = new LinkedHashMap<>();
+    private long version;
+    // Newest version among the evictions no longer remembered
+    private long forgotten;
+
+    public GraphQLResponseCache(LibraryProperties.ResponseCache config, long documentCacheSize, ObjectMapper objectMapper) {
+        long maximumBytes = config.getMaximumSize().toBytes();
+        int minimumWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maximumBytes / config.getMaximumEntries()));
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(documentCacheSize)
+                .build();
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .<String, Entry>weigher((key, entry) -> Math.max(minimumWeight, entry.response().body().length + 2 * key.length()))
+                .expireAfterWrite(config.getTimeToLive())
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null) {
+                        untag(key, entry);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.variablesWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * @param body the request body, with any persisted query already resolved to its text
+     * @return the cache key, or null if the request is not a query operation that can be cached
+     */
+    public String key(Map<String, Object> body) {
+        if (!(body.get("query") instanceof String query)) {
+            return null;
+        }
+        Normalized normalized = documents.get(query, GraphQLResponseCache::normalize);
+        String operationName = body.get("operationName") instanceof String name ? name : null;
+        OperationDefinition.Operation operation = operationName != null
+                ? normalized.operations().get(operationName)
+                : normalized.operations().size() == 1 ? normalized.operations().values().iterator().next() : null;
+        if (normalized.hash() == null || operation != OperationDefinition.Operation.QUERY) {
+            return null;
+        }
+        try {
+            return normalized.hash() + ':' + (operationName == null ? "" : operationName) + ':'
+                    + variablesWriter.writeValueAsString(body.getOrDefault("variables", Map.of()));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    public CachedResponse get(String key) {
+        Entry entry = responses.getIfPresent(key);
+        return entry == null ? null : entry.response();
+    }
+
+    /**
+     * @return the version to hand back to {@link #put} once the response has been executed
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Store a response unless one of its tags was evicted since {@code version} was read.
+     */
+    public synchronized void put(String key, long version, CachedResponse response, Set<String> tags) {
+        if (invalidatedSince(version, tags)) {
+            return;
+        }
+        Entry entry = new Entry(response, Set.copyOf(tags));
+        for (String tag : entry.tags()) {
+            entriesByTag.computeIfAbsent(tag, t -> new ConcurrentHashMap<>()).put(key, entry);
+        }
+        responses.put(key, entry);
+    }
+
+    @Override
+    public void onBookChanged(BookChangeEvent event) {
+        invalidate(BookTags.of(event));
+    }
+
+    public synchronized void invalidate(Collection<String> tags) {
+        version++;
+        for (String tag : tags) {
+            // Re-inserted so the map stays ordered by version
+            invalidations.remove(tag);
+            invalidations.put(tag, version);
+            Map<String, Entry> entries = entriesByTag.remove(tag);
+            if (entries != null) {
+                entries.forEach(responses.asMap()::remove);
+            }
+        }
+        for (Iterator<Long> oldest = invalidations.values().iterator();
+             invalidations.size() > RECENT_INVALIDATIONS; oldest.remove()) {
+            forgotten = oldest.next();
+        }
+    }
+
+    Cache<String, ?> cache() {
+        return responses;
+    }
+
+    private boolean invalidatedSince(long version, Set<String> tags) {
+        if (version < forgotten) {
+            // Too many evictions since to tell which tags they had
+            return true;
+        }
+        for (String tag : tags) {
+            Long evicted = invalidations.get(tag);
+            if (evicted != null && evicted > version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void untag(String key, Entry entry) {
+        for (String tag : entry.tags()) {
+            Map<String, Entry> entries = entriesByTag.get(tag);
+            if (entries != null) {
+                entries.remove(key, entry);
+            }
+        }
+    }
+
+    private static Normalized normalize(String query) {
+        Document document;
+        try {
+            document = Parser.parse(query);
+        } catch (GraphQLException e) {
+            // Left to execution, which reports the syntax error
+            return Normalized.INVALID;
+        }
+        Map<String, OperationDefinition.Operation> operations = new HashMap<>();
+        for (OperationDefinition definition : document.getDefinitionsOfType(OperationDefinition.class)) {
+            operations.put(definition.getName() == null ? "" : definition.getName(), definition.getOperation());
+        }
+        return new Normalized(sha256(AstPrinter.printAstCompact(document)), operations);
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
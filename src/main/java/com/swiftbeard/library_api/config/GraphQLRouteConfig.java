@@ -0,0 +1,34 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.controller.PersistedQueryHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class GraphQLRouteConfig {
+
+    /**
+     * Serve the GraphQL endpoint ahead of the default route, so requests carrying only a persisted query
+     * hash are resolved before the query text is required
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RouterFunction<ServerResponse> persistedQueryRoutes(PersistedQueryHandler handler, GraphQlProperties properties) {
+        String path = properties.getPath();
+        return RouterFunctions.route()
+                .GET(path, RequestPredicates.queryParam("query", query -> true)
+                        .or(RequestPredicates.queryParam("extensions", extensions -> true)), handler::handleGet)
+                .POST(path, RequestPredicates.contentType(MediaType.APPLICATION_JSON), handler::handlePost)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.model.Isbn;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+
+/**
+ * Coercing for the ISBN scalar. Inputs may be ISBN-10 or ISBN-13, with or without hyphens, and are
+ * checksum-validated and normalized to the ISBN-13 number; outputs are the 13 digits.
+ */
+public class IsbnCoercing implements Coercing<Long, String> {
+
+    @Override
+    public String serialize(Object dataFetcherResult) throws CoercingSerializeException {
+        if (dataFetcherResult instanceof Long isbn && Isbn.isValid(isbn)) {
+            return Long.toString(isbn);
+        }
+        if (dataFetcherResult instanceof CharSequence text && Isbn.parse(text) != Isbn.INVALID) {
+            return Long.toString(Isbn.parse(text));
+        }
+        throw new CoercingSerializeException("Expected a valid ISBN but was: " + dataFetcherResult);
+    }
+
+    @Override
+    public Long parseValue(Object input) throws CoercingParseValueException {
+        if (input instanceof String text) {
+            long isbn = Isbn.parse(text);
+            if (isbn != Isbn.INVALID) {
+                return isbn;
+            }
+        }
+        throw new CoercingParseValueException("Invalid ISBN: " + input);
+    }
+
+    @Override
+    public Long parseLiteral(Object input) throws CoercingParseLiteralException {
+        if (input instanceof StringValue value) {
+            long isbn = Isbn.parse(value.getValue());
+            if (isbn != Isbn.INVALID) {
+                return isbn;
+            }
+            throw new CoercingParseLiteralException("Invalid ISBN: " + value.getValue());
+        }
+        throw new CoercingParseLiteralException("Expected a StringValue");
+    }
+}
@@ -0,0 +1,248 @@
+package com.swiftbeard.library_api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Application specific settings bound from the {@code library.*} properties
+ */
+@Data
+@ConfigurationProperties(prefix = "library")
+public class LibraryProperties {
+
+    private final Cache cache = new Cache();
+
+    private final Subscriptions subscriptions = new Subscriptions();
+
+    private final Graphql graphql = new Graphql();
+
+    private final Export export = new Export();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Replica replica = new Replica();
+
+    private final Scale scale = new Scale();
+
+    @Data
+    public static class Cache {
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Subscriptions {
+        /**
+         * Events buffered per subscriber while it is not keeping up
+         */
+        private int bufferSize = 256;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        public enum OverflowPolicy {
+            /**
+             * Discard the oldest buffered event to make room for a new one
+             */
+            DROP_OLDEST,
+            /**
+             * Keep only the latest buffered event per book
+             */
+            CONFLATE
+        }
+    }
+
+    @Data
+    public static class Export {
+        /**
+         * Rows read per keyset page and written per response chunk
+         */
+        private int batchSize = 1_000;
+    }
+
+    @Data
+    public static class BulkImport {
+        /**
+         * Rows written per batch, each batch in its own transaction
+         */
+        private int batchSize = 500;
+        /**
+         * Batches written at the same time
+         */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Replica {
+        /**
+         * R2DBC URL of the read replica; reads outside transactions use the primary when unset
+         */
+        private String url;
+        private String username;
+        private String password;
+        /**
+         * How long the replica may be missing a commit. For that long after a commit, the committing
+         * client's reads and reads that refill a shared cache go to the primary
+         */
+        private Duration readYourWrites = Duration.ofSeconds(1);
+        /**
+         * Run schema.sql against the replica too, for a local database standing in for a real replica
+         */
+        private boolean initializeSchema = false;
+    }
+
+    /**
+     * Synthetic catalog generated at startup under the {@code scale} profile, see {@link CatalogGenerator}
+     */
+    @Data
+    public static class Scale {
+        private int books = 1_000_000;
+        private int authors = 50_000;
+        /**
+         * Seed of the generator; the same seed and sizes always give the same catalog
+         */
+        private long seed = 42;
+        /**
+         * Zipf exponent of books per author; higher values give the top authors more of the catalog
+         */
+        private double authorSkew = 1.1;
+        /**
+         * Zipf exponent of authors per genre
+         */
+        private double genreSkew = 1.0;
+        /**
+         * Rows per insert statement
+         */
+        private int batchSize = 1_000;
+    }
+
+    @Data
+    public static class Graphql {
+        /**
+         * Fraction of requests, from 0 to 1, that get a tracing block in the response extensions
+         */
+        private double tracingSampleRate = 0;
+        /**
+         * Distinct operation names tagged on GraphQL timers before further names are dropped
+         */
+        private int maxOperationTags = 100;
+        /**
+         * Parsed and validated documents kept for reuse
+         */
+        private long documentCacheSize = 1_000;
+        /**
+         * Automatic persisted queries kept by hash
+         */
+        private long persistedQueryCacheSize = 10_000;
+
+        private final Cost cost = new Cost();
+
+        private final ResponseCache responseCache = new ResponseCache();
+
+        private final HttpCache httpCache = new HttpCache();
+
+        private final Admission admission = new Admission();
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Limit concurrent GraphQL operations and shed the excess instead of queueing it without bound
+         */
+        private boolean enabled = true;
+        /**
+         * Operations allowed to run at once before the limit has adapted
+         */
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        /**
+         * Operations slower than this lower the limit; faster ones let it grow
+         */
+        private Duration latencyThreshold = Duration.ofMillis(250);
+        /**
+         * Factor applied to the limit when an operation is too slow or fails, at most once per threshold
+         */
+        private double backoffRatio = 0.9;
+        /**
+         * Fraction of the limit that list queries may use, leaving the rest to mutations and lookups
+         */
+        private double listShare = 0.75;
+        /**
+         * Operations of each priority waiting for a slot before further ones are rejected
+         */
+        private int queueSize = 100;
+        /**
+         * Longest an operation waits for a slot before it is rejected
+         */
+        private Duration queueTimeout = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class HttpCache {
+        /**
+         * Cache-Control max-age of query responses sent for GET requests; zero lets clients store them but
+         * revalidate with If-None-Match every time
+         */
+        private Duration maxAge = Duration.ZERO;
+        /**
+         * max-age by operation name, e.g. BooksByGenre=30s
+         */
+        private Map<String, Duration> operationMaxAge = new HashMap<>();
+    }
+
+    @Data
+    public static class ResponseCache {
+        /**
+         * Serve repeated query operations from cached response bytes
+         */
+        private boolean enabled = true;
+        /**
+         * Most responses kept at once
+         */
+        private long maximumEntries = 10_000;
+        /**
+         * Most serialized response bytes kept at once
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+        /**
+         * Upper bound on an entry's age, for changes made outside BookService
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Cost {
+        /**
+         * Deepest field nesting allowed, not counting introspection
+         */
+        private int maxDepth = 10;
+        /**
+         * Highest estimated cost allowed
+         */
+        private long maxCost = 10_000;
+        /**
+         * Fraction of a limit above which an accepted query is counted as near the limit
+         */
+        private double nearLimitRatio = 0.8;
+        /**
+         * Weight of fields returning objects that have no entry in fieldWeights; scalar fields cost nothing
+         */
+        private int defaultFieldWeight = 1;
+        /**
+         * Assumed size of lists without a 'first' argument
+         */
+        private int defaultListSize = 20;
+        /**
+         * Largest list size a 'first' or list argument can multiply by
+         */
+        private int maxListSize = 100;
+        /**
+         * Weights by Type.field, e.g. Query.searchBooks=20
+         */
+        private Map<String, Integer> fieldWeights = new HashMap<>();
+    }
+}
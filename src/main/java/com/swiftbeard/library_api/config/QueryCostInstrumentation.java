@@ -0,0 +1,148 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Estimates the cost and depth of every operation after validation and before any data fetcher runs, and
+ * aborts operations over either limit.
+ * <p>
+ * A field costs its weight plus its children's cost times the number of items it is expected to return:
+ * the {@code first} argument for paginated fields, the size of a list argument for bulk mutations, and a
+ * default size for other lists. Items of a connection's {@code edges} are already counted by the
+ * paginated field. Introspection fields are not counted.
+ */
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    static final String REJECTED_COUNTER = "graphql.cost.rejected";
+    static final String NEAR_LIMIT_COUNTER = "graphql.cost.near.limit";
+
+    private final MeterRegistry meterRegistry;
+    private final LibraryProperties.Cost limits;
+
+    public QueryCostInstrumentation(MeterRegistry meterRegistry, LibraryProperties.Cost limits) {
+        this.meterRegistry = meterRegistry;
+        this.limits = limits;
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        GraphQLSchema schema = executionContext.getGraphQLSchema();
+        List<ExecutableNormalizedField> fields = executionContext.getNormalizedQueryTree().get().getTopLevelFields();
+        String operation = operationName(executionContext);
+
+        int depth = depth(fields);
+        long cost = cost(fields, schema);
+        summary("graphql.depth", operation).record(depth);
+        summary("graphql.cost", operation).record(cost);
+
+        if (depth > limits.getMaxDepth()) {
+            meterRegistry.counter(REJECTED_COUNTER, "operation", operation, "limit", "depth").increment();
+            throw new AbortExecutionException(
+                    "Query depth " + depth + " exceeds the maximum of " + limits.getMaxDepth());
+        }
+        if (cost > limits.getMaxCost()) {
+            meterRegistry.counter(REJECTED_COUNTER, "operation", operation, "limit", "cost").increment();
+            throw new AbortExecutionException(
+                    "Query cost " + cost + " exceeds the maximum of " + limits.getMaxCost());
+        }
+        if (depth > limits.getMaxDepth() * limits.getNearLimitRatio()) {
+            meterRegistry.counter(NEAR_LIMIT_COUNTER, "operation", operation, "limit", "depth").increment();
+        }
+        if (cost > limits.getMaxCost() * limits.getNearLimitRatio()) {
+            meterRegistry.counter(NEAR_LIMIT_COUNTER, "operation", operation, "limit", "cost").increment();
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    private static int depth(List<ExecutableNormalizedField> fields) {
+        int depth = 0;
+        for (ExecutableNormalizedField field : fields) {
+            if (!isIntrospection(field)) {
+                depth = Math.max(depth, 1 + depth(field.getChildren()));
+            }
+        }
+        return depth;
+    }
+
+    private long cost(List<ExecutableNormalizedField> fields, GraphQLSchema schema) {
+        long cost = 0;
+        for (ExecutableNormalizedField field : fields) {
+            if (!isIntrospection(field)) {
+                cost = saturatedAdd(cost, cost(field, schema));
+            }
+        }
+        return cost;
+    }
+
+    private long cost(ExecutableNormalizedField field, GraphQLSchema schema) {
+        GraphQLFieldDefinition definition = field.getFieldDefinitions(schema).get(0);
+        String parentType = field.getObjectTypeNames().iterator().next();
+        long childCost = cost(field.getChildren(), schema);
+        long weight = limits.getFieldWeights().getOrDefault(parentType + "." + field.getName(),
+                field.getChildren().isEmpty() ? 0 : limits.getDefaultFieldWeight());
+        return saturatedAdd(weight, saturatedMultiply(childCost, multiplier(field, definition, parentType)));
+    }
+
+    private long multiplier(ExecutableNormalizedField field, GraphQLFieldDefinition definition, String parentType) {
+        Object first = field.getResolvedArguments().get("first");
+        if (first instanceof Number number) {
+            return Math.min(Math.max(number.longValue(), 1), limits.getMaxListSize());
+        }
+        if (definition.getArgument("first") != null) {
+            return limits.getDefaultListSize();
+        }
+        for (Object argument : field.getResolvedArguments().values()) {
+            if (argument instanceof Collection<?> items) {
+                return Math.min(Math.max(items.size(), 1), limits.getMaxListSize());
+            }
+        }
+        if (GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(definition.getType())) && !parentType.endsWith("Connection")) {
+            return limits.getDefaultListSize();
+        }
+        return 1;
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .description("Estimated " + name.substring("graphql.".length()) + " of GraphQL operations")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static String operationName(ExecutionContext executionContext) {
+        String name = executionContext.getOperationDefinition().getName();
+        return name != null ? name : "anonymous";
+    }
+
+    private static boolean isIntrospection(ExecutableNormalizedField field) {
+        return field.getName().startsWith("__");
+    }
+
+    // Costs are never negative; absurd queries saturate instead of overflowing past the limit
+
+    private static long saturatedAdd(long a, long b) {
+        return a > Long.MAX_VALUE - b ? Long.MAX_VALUE : a + b;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        return a != 0 && b > Long.MAX_VALUE / a ? Long.MAX_VALUE : a * b;
+    }
+}
@@ -0,0 +1,30 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.OperationDefinition;
+
+/**
+ * Rejects mutations and subscriptions on requests marked read-only, i.e. those sent with GET.
+ */
+public class ReadOnlyOperationInstrumentation extends SimplePerformantInstrumentation {
+
+    public static final String READ_ONLY = ReadOnlyOperationInstrumentation.class.getName() + ".readOnly";
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        if (Boolean.TRUE.equals(executionContext.getGraphQLContext().get(READ_ONLY))
+                && executionContext.getOperationDefinition().getOperation() != OperationDefinition.Operation.QUERY) {
+            throw new AbortExecutionException("Only queries can be sent with GET");
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+}
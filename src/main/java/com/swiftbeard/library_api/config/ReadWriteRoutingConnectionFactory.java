@@ -0,0 +1,131 @@
+package com.swiftbeard.library_api.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends connections opened for a transaction to the primary and all other connections to the replica.
+ * <p>
+ * Writes in this application run in {@code @Transactional} methods, while reads outside a transaction
+ * can tolerate replication lag. For the read-your-writes window after a commit, recorded by
+ * {@link ReadYourWritesTransactionManager} once the commit has happened, two kinds of read still go to
+ * the primary:
+ * <ul>
+ *     <li>reads of the client that committed, identified by the {@link Session} in the Reactor context</li>
+ *     <li>reads that refill a shared cache, marked with {@link #fillingCache}, after any commit, so a row
+ *     the replica has not caught up on is not cached for the cache's whole lifetime</li>
+ * </ul>
+ */
+public class ReadWriteRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final String FILLS_CACHE = ReadWriteRoutingConnectionFactory.class.getName() + ".FILLS_CACHE";
+
+    /**
+     * The read-your-writes window of one client, carried in the Reactor context of its requests under this class
+     */
+    public static final class Session {
+
+        private long primaryUntil;
+        private boolean extended;
+
+        /**
+         * @param primaryUntil epoch millis until which this client's reads go to the primary
+         */
+        public Session(long primaryUntil) {
+            this.primaryUntil = primaryUntil;
+        }
+
+        public synchronized long primaryUntil() {
+            return primaryUntil;
+        }
+
+        /**
+         * @return whether this client's reads go to the primary right now
+         */
+        public boolean pinned() {
+            return primaryUntil() > System.currentTimeMillis();
+        }
+
+        /**
+         * @return whether a commit in this session moved the window
+         */
+        public synchronized boolean extended() {
+            return extended;
+        }
+
+        synchronized void extend(long until) {
+            if (until > primaryUntil) {
+                primaryUntil = until;
+                extended = true;
+            }
+        }
+    }
+
+    private final Duration readYourWrites;
+    private volatile long lastCommit;
+
+    /**
+     * @param readYourWrites how long after a commit the replica may still be missing it, or zero to always
+     *                       read from the replica outside transactions
+     */
+    public ReadWriteRoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica, Duration readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        this.lastCommit = System.nanoTime() - readYourWrites.toNanos();
+        setTargetConnectionFactories(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetConnectionFactory(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Mark a read whose result goes into a cache shared by all clients
+     */
+    public static <T> Mono<T> fillingCache(Mono<T> read) {
+        return read.contextWrite(context -> context.put(FILLS_CACHE, true));
+    }
+
+    public Duration getReadYourWrites() {
+        return readYourWrites;
+    }
+
+    /**
+     * Record a commit of a read-write transaction made under the given Reactor context
+     */
+    void committed(ContextView context) {
+        if (readYourWrites.isZero()) {
+            return;
+        }
+        lastCommit = System.nanoTime();
+        context.<Session>getOrEmpty(Session.class)
+                .ifPresent(session -> session.extend(System.currentTimeMillis() + readYourWrites.toMillis()));
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(synchronizationManager -> (Object) Target.PRIMARY)
+                .onErrorResume(NoTransactionException.class,
+                        e -> Mono.deferContextual(context -> Mono.just(readTarget(context))));
+    }
+
+    private Target readTarget(ContextView context) {
+        boolean sessionPinned = context.<Session>getOrEmpty(Session.class)
+                .map(Session::pinned)
+                .orElse(false);
+        boolean cachePinned = context.getOrDefault(FILLS_CACHE, false)
+                && System.nanoTime() - lastCommit < readYourWrites.toNanos();
+        return sessionPinned || cachePinned ? Target.PRIMARY : Target.REPLICA;
+    }
+}
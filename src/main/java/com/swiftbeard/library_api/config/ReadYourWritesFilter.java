@@ -0,0 +1,58 @@
+package com.swiftbeard.library_api.config;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+/**
+ * Gives every request a {@link ReadWriteRoutingConnectionFactory.Session} and carries the client's
+ * read-your-writes window to its next requests in a cookie, so a client reads from the primary for a
+ * while after it commits a write, and only that client does.
+ */
+public class ReadYourWritesFilter implements WebFilter {
+
+    static final String COOKIE = "library-primary-until";
+
+    private final Duration readYourWrites;
+
+    public ReadYourWritesFilter(Duration readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ReadWriteRoutingConnectionFactory.Session session =
+                new ReadWriteRoutingConnectionFactory.Session(primaryUntil(exchange.getRequest()));
+        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> {
+            if (session.extended()) {
+                exchange.getResponse().addCookie(ResponseCookie.from(COOKIE, Long.toString(session.primaryUntil()))
+                        .maxAge(readYourWrites)
+                        .path("/")
+                        .httpOnly(true)
+                        .build());
+            }
+        }));
+        return chain.filter(exchange)
+                .contextWrite(Context.of(ReadWriteRoutingConnectionFactory.Session.class, session));
+    }
+
+    private long primaryUntil(ServerHttpRequest request) {
+        HttpCookie cookie = request.getCookies().getFirst(COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            // The client controls the cookie, so it may shorten its window but not extend it
+            return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + readYourWrites.toMillis());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
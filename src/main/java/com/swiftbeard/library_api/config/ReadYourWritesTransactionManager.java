@@ -0,0 +1,34 @@
+package com.swiftbeard.library_api.config;
+
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tells the {@link ReadWriteRoutingConnectionFactory} about every commit of a read-write transaction once
+ * the database has accepted it, under the Reactor context of the caller. Read-your-writes windows are
+ * counted from there, so a long transaction does not use up its client's window before it commits.
+ */
+public class ReadYourWritesTransactionManager extends R2dbcTransactionManager {
+
+    private final ReadWriteRoutingConnectionFactory routing;
+
+    public ReadYourWritesTransactionManager(ReadWriteRoutingConnectionFactory routing) {
+        super(routing);
+        this.routing = routing;
+    }
+
+    @Override
+    protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+                                  GenericReactiveTransaction status) {
+        Mono<Void> commit = super.doCommit(synchronizationManager, status);
+        if (status.isReadOnly()) {
+            return commit;
+        }
+        return commit.then(Mono.deferContextual(context -> {
+            routing.committed(context);
+            return Mono.<Void>empty();
+        }));
+    }
+}
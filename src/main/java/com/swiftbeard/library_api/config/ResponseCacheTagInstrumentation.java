@@ -0,0 +1,58 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.model.Author;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.service.BookTags;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLObjectType;
+
+import java.util.Set;
+
+/**
+ * Records what a query read as {@link GraphQLResponseCache} tags, in the set found under
+ * {@link GraphQLResponseCache#TAGS} in the GraphQL context. Requests without that set are not tagged.
+ * <p>
+ * Root fields are tagged by their arguments, so a lookup that found nothing is still evicted once a
+ * matching book is created, and listings by the catalog tag. Every book read is tagged by id, and an
+ * author's books by the author's name.
+ */
+public class ResponseCacheTagInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters,
+                                                          InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        Set<String> tags = environment.getGraphQlContext().get(GraphQLResponseCache.TAGS);
+        if (tags != null) {
+            tag(environment, tags);
+        }
+        return super.beginFieldFetch(parameters, state);
+    }
+
+    private static void tag(DataFetchingEnvironment environment, Set<String> tags) {
+        Object source = environment.getSource();
+        if (source instanceof Book book) {
+            tags.add(BookTags.book(book.getId()));
+            return;
+        }
+        if (source instanceof Author author) {
+            tags.add(BookTags.author(author.getName()));
+            return;
+        }
+        GraphQLObjectType parentType = (GraphQLObjectType) environment.getParentType();
+        if (!parentType.getName().equals("Query")) {
+            return;
+        }
+        switch (environment.getField().getName()) {
+            case "bookById" -> tags.add(BookTags.book(environment.getArgument("id")));
+            case "bookByIsbn" -> tags.add(BookTags.isbn(environment.getArgument("isbn")));
+            case "booksByAuthor" -> tags.add(BookTags.author(environment.getArgument("author")));
+            case "booksByGenre" -> tags.add(BookTags.genre(environment.getArgument("genre")));
+            default -> tags.add(BookTags.CATALOG);
+        }
+    }
+}
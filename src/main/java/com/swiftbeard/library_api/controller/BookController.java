@@ -1,26 +1,59 @@
 package com.swiftbeard.library_api.controller;
 
+import com.swiftbeard.library_api.model.Author;
 import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookColumn;
+import com.swiftbeard.library_api.model.BookConnection;
 import com.swiftbeard.library_api.model.BookInput;
 import com.swiftbeard.library_api.model.BookUpdateInput;
+import com.swiftbeard.library_api.model.BulkBookResult;
+import com.swiftbeard.library_api.model.Genre;
 import com.swiftbeard.library_api.service.BookService;
-import lombok.RequiredArgsConstructor;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 @Controller
-@RequiredArgsConstructor
 public class BookController {
 
+    /**
+     * One author's page of books; keys that differ only by author are loaded in the same query
+     */
+    record AuthorBooksKey(Long authorId, Integer first, String after, Set<BookColumn> columns) {
+
+        AuthorBooksKey forAuthor(Long authorId) {
+            return new AuthorBooksKey(authorId, first, after, columns);
+        }
+    }
+
     private final BookService bookService;
 
+    public BookController(BookService bookService, BatchLoaderRegistry batchLoaderRegistry) {
+        this.bookService = bookService;
+        batchLoaderRegistry.forTypePair(AuthorBooksKey.class, BookConnection.class)
+                .registerMappedBatchLoader((keys, environment) -> loadAuthorBooks(keys));
+    }
+
     @QueryMapping
-    public Flux<Book> books() {
-        return bookService.getAllBooks();
+    public Mono<BookConnection> books(@Argument Integer first, @Argument String after,
+                                      DataFetchingFieldSelectionSet selectionSet) {
+        return bookService.getBooks(first, after, BookSelection.columns(selectionSet, BookSelection.CONNECTION_NODE));
     }
 
     @QueryMapping
@@ -29,48 +62,98 @@ public class BookController {
     }
 
     @QueryMapping
-    public Flux<Book> booksByAuthor(@Argument String author) {
-        return bookService.getBooksByAuthor(author);
+    public Mono<Book> bookByIsbn(@Argument Long isbn) {
+        return bookService.getBookByIsbn(isbn);
+    }
+
+    @QueryMapping
+    public Mono<BookConnection> booksByAuthor(@Argument String author, @Argument Integer first, @Argument String after,
+                                              DataFetchingFieldSelectionSet selectionSet) {
+        return bookService.getBooksByAuthor(author, first, after,
+                BookSelection.columns(selectionSet, BookSelection.CONNECTION_NODE));
     }
 
     @QueryMapping
-    public Flux<Book> booksByGenre(@Argument String genre) {
-        return bookService.getBooksByGenre(genre);
+    public Mono<BookConnection> booksByGenre(@Argument String genre, @Argument Integer first, @Argument String after,
+                                             DataFetchingFieldSelectionSet selectionSet) {
+        return bookService.getBooksByGenre(genre, first, after,
+                BookSelection.columns(selectionSet, BookSelection.CONNECTION_NODE));
+    }
+
+    @QueryMapping
+    public Mono<BookConnection> searchBooks(@Argument String query, @Argument Integer first, @Argument String after,
+                                            DataFetchingFieldSelectionSet selectionSet) {
+        return bookService.searchBooks(query, first, after,
+                BookSelection.columns(selectionSet, BookSelection.CONNECTION_NODE));
+    }
+
+    // Nested lookups are batched per request, so each level of nesting costs one IN (...) query
+
+    @BatchMapping(typeName = "Book", field = "authorDetails")
+    public Mono<Map<Book, Author>> authorDetails(List<Book> books) {
+        return bookService.getAuthorsOf(books);
+    }
+
+    @BatchMapping(typeName = "Book", field = "genreDetails")
+    public Mono<Map<Book, Genre>> genreDetails(List<Book> books) {
+        return bookService.getGenresOf(books);
+    }
+
+    // Author.books takes page arguments, which @BatchMapping cannot see, so it goes through a DataLoader keyed by them
+
+    @SchemaMapping(typeName = "Author", field = "books")
+    public CompletableFuture<BookConnection> authorBooks(Author author, @Argument Integer first, @Argument String after,
+                                                         DataFetchingFieldSelectionSet selectionSet,
+                                                         DataLoader<AuthorBooksKey, BookConnection> loader) {
+        return loader.load(new AuthorBooksKey(author.getId(), first, after,
+                BookSelection.columns(selectionSet, BookSelection.CONNECTION_NODE)));
+    }
+
+    Mono<Map<AuthorBooksKey, BookConnection>> loadAuthorBooks(Set<AuthorBooksKey> keys) {
+        Map<AuthorBooksKey, Set<Long>> authorIdsByPage = keys.stream().collect(Collectors.groupingBy(
+                key -> key.forAuthor(null), Collectors.mapping(AuthorBooksKey::authorId, Collectors.toSet())));
+        return Flux.fromIterable(authorIdsByPage.entrySet())
+                .concatMap(page -> bookService.getBooksOfAuthors(page.getValue(), page.getKey().first(),
+                                page.getKey().after(), page.getKey().columns())
+                        .flatMapIterable(Map::entrySet)
+                        .map(books -> Map.entry(page.getKey().forAuthor(books.getKey()), books.getValue())))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
     }
 
     @MutationMapping
     public Mono<Book> createBook(@Argument("book") BookInput input) {
-        Book book = Book.builder()
-                .title(input.title())
-                .author(input.author())
-                .isbn(input.isbn())
-                .publishYear(input.publishYear())
-                .genre(input.genre())
-                .available(input.available() != null ? input.available() : true)
-                .build();
-
-        return bookService.createBook(book);
+        return bookService.createBook(input.toBook());
     }
 
     @MutationMapping
     public Mono<Book> updateBook(@Argument("book") BookUpdateInput input) {
-        Book book = Book.builder()
-                .id(input.id())
-                .title(input.title())
-                .author(input.author())
-                .isbn(input.isbn())
-                .publishYear(input.publishYear())
-                .genre(input.genre())
-                .available(input.available())
-                .build();
-
-        return bookService.updateBook(book);
+        return bookService.updateBook(input.toBook());
     }
 
     @MutationMapping
     public Mono<Boolean> deleteBook(@Argument Long id) {
         return bookService.deleteBook(id);
     }
+
+    @MutationMapping
+    public Mono<BulkBookResult> createBooks(@Argument("books") List<BookInput> inputs) {
+        return bookService.createBooks(inputs.stream().map(BookInput::toBook).toList());
+    }
+
+    @MutationMapping
+    public Mono<BulkBookResult> updateBooks(@Argument("books") List<BookUpdateInput> inputs) {
+        return bookService.updateBooks(inputs.stream().map(BookUpdateInput::toBook).toList());
+    }
+
+    @MutationMapping
+    public Mono<BulkBookResult> deleteBooks(@Argument List<Long> ids) {
+        return bookService.deleteBooks(ids);
+    }
+
+    @SubscriptionMapping
+    public Flux<BookChangeEvent> bookChanged(@Argument String genre, @Argument String author) {
+        return bookService.getBookChanges(genre, author);
+    }
 }
 
     // Input classes for GraphQL mutations
@@ -0,0 +1,146 @@
+package com.swiftbeard.library_api.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.service.BookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams the catalog as NDJSON or CSV. Rows are written as they are read, one chunk per page of books,
+ * so the first bytes go out right away and memory use stays flat however many books are exported.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookExportHandler {
+
+    static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final String CSV_HEADER = "id,title,author,isbn,publishYear,genre,available\n";
+
+    private final BookService bookService;
+    private final LibraryProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public Mono<ServerResponse> export(ServerRequest request) {
+        boolean csv = isCsv(request);
+        int batchSize = properties.getExport().getBatchSize();
+        DataBufferFactory bufferFactory = request.exchange().getResponse().bufferFactory();
+        JsonFactory jsonFactory = objectMapper.getFactory();
+
+        Flux<DataBuffer> rows = bookService.exportBooks(request.queryParam("author").orElse(null),
+                        request.queryParam("genre").orElse(null), batchSize)
+                .buffer(batchSize)
+                .map(books -> csv ? writeCsv(books, bufferFactory) : writeNdjson(books, bufferFactory, jsonFactory));
+        Flux<DataBuffer> body = csv
+                ? Flux.concat(Mono.fromSupplier(() -> bufferFactory.wrap(CSV_HEADER.getBytes(StandardCharsets.UTF_8))), rows)
+                : rows;
+
+        return ServerResponse.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "books.csv" : "books.ndjson")
+                        .build()
+                        .toString())
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+
+    private static boolean isCsv(ServerRequest request) {
+        String format = request.queryParam("format").orElse(null);
+        if (format == null) {
+            return request.headers().accept().stream().anyMatch(TEXT_CSV::equalsTypeAndSubtype);
+        }
+        if (format.equalsIgnoreCase("csv")) {
+            return true;
+        }
+        if (format.equalsIgnoreCase("ndjson")) {
+            return false;
+        }
+        throw new ServerWebInputException("Unsupported export format: " + format);
+    }
+
+    private static DataBuffer writeNdjson(List<Book> books, DataBufferFactory bufferFactory, JsonFactory jsonFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(books.size() * 160);
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            // Each object ends its own line instead of being followed by Jackson's root value separator
+            json.setRootValueSeparator(null);
+            for (Book book : books) {
+                json.writeStartObject();
+                writeNumber(json, "id", book.getId());
+                json.writeStringField("title", book.getTitle());
+                json.writeStringField("author", book.getAuthor());
+                writeNumber(json, "isbn", book.getIsbn());
+                writeNumber(json, "publishYear", book.getPublishYear());
+                json.writeStringField("genre", book.getGenre());
+                if (book.getAvailable() == null) {
+                    json.writeNullField("available");
+                } else {
+                    json.writeBooleanField("available", book.getAvailable());
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    private static void writeNumber(JsonGenerator json, String field, Number value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value.longValue());
+        }
+    }
+
+    private static DataBuffer writeCsv(List<Book> books, DataBufferFactory bufferFactory) {
+        StringBuilder rows = new StringBuilder(books.size() * 128);
+        for (Book book : books) {
+            rows.append(book.getId()).append(',');
+            appendCsv(rows, book.getTitle()).append(',');
+            appendCsv(rows, book.getAuthor()).append(',');
+            appendCsv(rows, book.getIsbn()).append(',');
+            appendCsv(rows, book.getPublishYear()).append(',');
+            appendCsv(rows, book.getGenre()).append(',');
+            appendCsv(rows, book.getAvailable()).append('\n');
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        return bufferFactory.allocateBuffer(bytes.length).write(bytes);
+    }
+
+    /**
+     * Append a CSV field, quoting it per RFC 4180 when it contains a delimiter, quote or line break.
+     */
+    private static StringBuilder appendCsv(StringBuilder row, Object value) {
+        if (value == null) {
+            return row;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return row.append(text);
+        }
+        return row.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
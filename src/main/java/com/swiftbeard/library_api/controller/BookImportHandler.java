@@ -0,0 +1,56 @@
+package com.swiftbeard.library_api.controller;
+
+import com.swiftbeard.library_api.exception.InvalidImportException;
+import com.swiftbeard.library_api.model.ImportProgress;
+import com.swiftbeard.library_api.service.BookImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accepts an NDJSON or CSV upload and streams back the import progress as NDJSON. The body is split into
+ * lines as it arrives, so only the lines of the batches being written are held in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookImportHandler {
+
+    // Splits on \n and \r\n, and fails any single line larger than the decoder's in-memory limit
+    private static final StringDecoder LINES = StringDecoder.allMimeTypes();
+    private static final ResolvableType STRING = ResolvableType.forClass(String.class);
+
+    private final BookImportService bookImportService;
+
+    public Mono<ServerResponse> importBooks(ServerRequest request) {
+        MediaType contentType = request.headers().contentType().orElse(MediaType.APPLICATION_NDJSON);
+        BookImportService.Format format;
+        if (BookExportHandler.TEXT_CSV.equalsTypeAndSubtype(contentType)) {
+            format = BookImportService.Format.CSV;
+        } else if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(contentType)) {
+            format = BookImportService.Format.NDJSON;
+        } else {
+            return Mono.error(new UnsupportedMediaTypeStatusException(contentType,
+                    List.of(MediaType.APPLICATION_NDJSON, BookExportHandler.TEXT_CSV)));
+        }
+
+        Flux<String> lines = LINES.decode(request.body(BodyExtractors.toDataBuffers()), STRING, contentType, Map.of());
+        Flux<ImportProgress> progress = bookImportService.importBooks(lines, format)
+                .onErrorMap(InvalidImportException.class, e -> new ServerWebInputException(e.getMessage()));
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(progress, ImportProgress.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.swiftbeard.library_api.controller;
+
+import com.swiftbeard.library_api.model.BookColumn;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out which book columns a query needs from the fields the client selected.
+ */
+final class BookSelection {
+
+    /**
+     * Book nodes inside a BookConnection
+     */
+    static final String CONNECTION_NODE = "edges/node/";
+
+    // authorDetails and genreDetails are loaded in batches keyed by the reference columns
+    private static final Map<String, BookColumn> COLUMNS_BY_FIELD = Map.of(
+            "id", BookColumn.ID,
+            "title", BookColumn.TITLE,
+            "author", BookColumn.AUTHOR,
+            "isbn", BookColumn.ISBN,
+            "publishYear", BookColumn.PUBLISH_YEAR,
+            "genre", BookColumn.GENRE,
+            "available", BookColumn.AVAILABLE,
+            "authorDetails", BookColumn.AUTHOR_ID,
+            "genreDetails", BookColumn.GENRE_ID);
+
+    private BookSelection() {
+    }
+
+    /**
+     * @return the columns behind the book fields selected under the given path; the id is always included
+     * since cursors are built from it
+     */
+    static Set<BookColumn> columns(DataFetchingFieldSelectionSet selectionSet, String bookPath) {
+        if (selectionSet == null) {
+            return BookColumn.ALL;
+        }
+        Set<BookColumn> columns = EnumSet.of(BookColumn.ID);
+        for (SelectedField field : selectionSet.getFields(bookPath + "*")) {
+            BookColumn column = COLUMNS_BY_FIELD.get(field.getName());
+            if (column != null) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+}
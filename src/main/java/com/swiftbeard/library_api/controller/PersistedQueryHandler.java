@@ -0,0 +1,236 @@
+package com.swiftbeard.library_api.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.GraphQLResponseCache;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.config.ReadWriteRoutingConnectionFactory;
+import com.swiftbeard.library_api.config.ReadOnlyOperationInstrumentation;
+import com.swiftbeard.library_api.exception.PersistedQueryException;
+import com.swiftbeard.library_api.service.PersistedQueryRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GraphQL over HTTP with automatic persisted queries, for both POST bodies and GET query parameters.
+ * <p>
+ * Requests are handed to the same {@link WebGraphQlHandler} as the default endpoint once a persisted
+ * query hash has been resolved to its text. GET requests may only run queries, which lets a repeated
+ * query be sent as a short, cacheable URL carrying just the hash and variables.
+ * <p>
+ * Query responses without errors or extensions are kept serialized in the {@link GraphQLResponseCache},
+ * when it is enabled, and written as they are for the same operation and variables. Query responses to GET
+ * requests also carry a strong ETag, the hash of those bytes, and Cache-Control; a matching If-None-Match
+ * gets 304 Not Modified, which needs no database access while the response is cached.
+ * <p>
+ * Only registered in a reactive web application, the only kind that has a {@link WebGraphQlHandler}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class PersistedQueryHandler {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> BODY = new ParameterizedTypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final WebGraphQlHandler webGraphQlHandler;
+    private final PersistedQueryRegistry persistedQueryRegistry;
+    private final ObjectMapper objectMapper;
+    private final Optional<GraphQLResponseCache> responseCache;
+    private final LibraryProperties properties;
+
+    public Mono<ServerResponse> handleGet(ServerRequest request) {
+        return Mono.fromCallable(() -> queryParameters(request))
+                .flatMap(body -> execute(request, body, true));
+    }
+
+    public Mono<ServerResponse> handlePost(ServerRequest request) {
+        return request.bodyToMono(BODY)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is required")))
+                .flatMap(body -> execute(request, body, false));
+    }
+
+    private Mono<ServerResponse> execute(ServerRequest request, Map<String, Object> body, boolean readOnly) {
+        Map<String, Object> resolved;
+        try {
+            resolved = persistedQueryRegistry.resolve(body);
+        } catch (PersistedQueryException e) {
+            return persistedQueryError(e);
+        }
+
+        WebGraphQlRequest graphQlRequest = new WebGraphQlRequest(request.uri(), request.headers().asHttpHeaders(),
+                request.cookies(), request.attributes(), resolved, request.exchange().getRequest().getId(),
+                request.exchange().getLocaleContext().getLocale());
+        if (readOnly) {
+            graphQlRequest.configureExecutionInput((input, builder) -> builder
+                    .graphQLContext(context -> context.put(ReadOnlyOperationInstrumentation.READ_ONLY, true))
+                    .build());
+        }
+
+        String key = responseCache.map(cache -> cache.key(resolved)).orElse(null);
+        if (key == null && !readOnly) {
+            return webGraphQlHandler.handleRequest(graphQlRequest)
+                    .flatMap(response -> ServerResponse.ok()
+                            .headers(headers -> headers.putAll(response.getResponseHeaders()))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(response.toMap()));
+        }
+        return executeSerialized(request, graphQlRequest, key, readOnly ? cacheControl(resolved) : null);
+    }
+
+    /**
+     * Execute, or answer from the response cache when {@code key} is set, with the response serialized up
+     * front so it can be cached and tagged. With {@code cacheControl} set, complete responses carry an ETag
+     * and Cache-Control, and requests whose If-None-Match matches the ETag get 304 Not Modified.
+     */
+    private Mono<ServerResponse> executeSerialized(ServerRequest request, WebGraphQlRequest graphQlRequest,
+                                                   String key, CacheControl cacheControl) {
+        GraphQLResponseCache cache = key != null ? responseCache.get() : null;
+        if (cache != null) {
+            GraphQLResponseCache.CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                return respond(request, cached, HttpHeaders.EMPTY, cacheControl);
+            }
+        }
+
+        long version = cache != null ? cache.version() : 0;
+        Set<String> tags = ConcurrentHashMap.newKeySet();
+        if (cache != null) {
+            graphQlRequest.configureExecutionInput((input, builder) -> builder
+                    .graphQLContext(context -> context.put(GraphQLResponseCache.TAGS, tags))
+                    .build());
+        }
+        Mono<WebGraphQlResponse> execution = webGraphQlHandler.handleRequest(graphQlRequest);
+        return (cache != null ? ReadWriteRoutingConnectionFactory.fillingCache(execution) : execution)
+                .flatMap(response -> {
+                    byte[] body = serialize(response);
+                    GraphQLResponseCache.CachedResponse serialized = new GraphQLResponseCache.CachedResponse(body, etag(body));
+                    boolean complete = response.getErrors().isEmpty() && response.getExtensions().isEmpty()
+                            && response.getResponseHeaders().isEmpty();
+                    if (!complete) {
+                        return respond(request, serialized, response.getResponseHeaders(), null);
+                    }
+                    if (cache != null) {
+                        cache.put(key, version, serialized, tags);
+                    }
+                    return respond(request, serialized, HttpHeaders.EMPTY, cacheControl);
+                });
+    }
+
+    private static Mono<ServerResponse> respond(ServerRequest request, GraphQLResponseCache.CachedResponse response,
+                                                HttpHeaders responseHeaders, CacheControl cacheControl) {
+        if (cacheControl == null) {
+            return ServerResponse.ok()
+                    .headers(headers -> headers.putAll(responseHeaders))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(response.body());
+        }
+        if (notModified(request, response.etag())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ServerResponse.ok()
+                .eTag(response.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(response.body());
+    }
+
+    private static boolean notModified(ServerRequest request, String etag) {
+        List<String> ifNoneMatch;
+        try {
+            ifNoneMatch = request.headers().asHttpHeaders().getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // If-None-Match uses the weak comparison
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CacheControl cacheControl(Map<String, Object> body) {
+        LibraryProperties.HttpCache httpCache = properties.getGraphql().getHttpCache();
+        Duration maxAge = body.get("operationName") instanceof String operationName
+                ? httpCache.getOperationMaxAge().getOrDefault(operationName, httpCache.getMaxAge())
+                : httpCache.getMaxAge();
+        return maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge);
+    }
+
+    /**
+     * A strong entity tag: the URL-safe Base64 SHA-256 of the serialized response
+     */
+    static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] serialize(WebGraphQlResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response.toMap());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the GraphQL response", e);
+        }
+    }
+
+    private Map<String, Object> queryParameters(ServerRequest request) {
+        Map<String, Object> body = new HashMap<>();
+        request.queryParam("query").ifPresent(query -> body.put("query", query));
+        request.queryParam("operationName").ifPresent(name -> body.put("operationName", name));
+        request.queryParam("variables").ifPresent(variables -> body.put("variables", json("variables", variables)));
+        request.queryParam("extensions").ifPresent(extensions -> body.put("extensions", json("extensions", extensions)));
+        return body;
+    }
+
+    private Map<String, Object> json(String parameter, String value) {
+        try {
+            return objectMapper.readValue(value, JSON_OBJECT);
+        } catch (JsonProcessingException e) {
+            throw new ServerWebInputException("Parameter '" + parameter + "' is not a JSON object");
+        }
+    }
+
+    private static Mono<ServerResponse> persistedQueryError(PersistedQueryException e) {
+        HttpStatus status = PersistedQueryException.NOT_FOUND.equals(e.getCode()) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        Map<String, Object> error = Map.of("message", e.getMessage(), "extensions", Map.of("code", e.getCode()));
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("errors", List.of(error)));
+    }
+}
@@ -0,0 +1,7 @@
+package com.swiftbeard.library_api.exception;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
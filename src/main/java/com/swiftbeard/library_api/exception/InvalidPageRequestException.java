@@ -0,0 +1,7 @@
+package com.swiftbeard.library_api.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.swiftbeard.library_api.exception;
+
+import lombok.Getter;
+
+/**
+ * An operation was turned away because the server is at its concurrency limit. Nothing was executed, so
+ * clients can retry it after a short delay.
+ */
+@Getter
+public class OverloadedException extends RuntimeException {
+
+    public static final String CODE = "OVERLOADED";
+    public static final String QUEUE_FULL = "queue-full";
+    public static final String TIMEOUT = "timeout";
+
+    private final String reason;
+
+    public OverloadedException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
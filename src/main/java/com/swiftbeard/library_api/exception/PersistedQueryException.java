@@ -0,0 +1,22 @@
+package com.swiftbeard.library_api.exception;
+
+import lombok.Getter;
+
+/**
+ * A persisted query could not be resolved. The code follows the automatic persisted queries protocol, so
+ * clients know to retry with the full query text.
+ */
+@Getter
+public class PersistedQueryException extends RuntimeException {
+
+    public static final String NOT_FOUND = "PERSISTED_QUERY_NOT_FOUND";
+    public static final String HASH_MISMATCH = "PERSISTED_QUERY_HASH_MISMATCH";
+    public static final String UNSUPPORTED = "PERSISTED_QUERY_NOT_SUPPORTED";
+
+    private final String code;
+
+    public PersistedQueryException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+}
@@ -10,7 +10,6 @@ import org.springframework.data.relational.core.mapping.Table;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 
 @Data
@@ -28,11 +27,10 @@ public class Book {
     @NotBlank(message = "Author is required")
     private String author;
 
-    @NotBlank(message = "ISBN is required")
-    @Pattern(regexp = "^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$",
-            message = "Invalid ISBN format")
+    // Normalized ISBN-13, see Isbn; checksums are validated where ISBNs enter the application
+    @NotNull(message = "ISBN is required")
     @Column("isbn")
-    private String isbn;
+    private Long isbn;
 
     @Positive(message = "Publish year must be positive")
     private Integer publishYear;
@@ -42,4 +40,9 @@ public class Book {
     @NotNull(message = "Available status is required")
     @Builder.Default
     private Boolean available = true;
+
+    // References to the normalized authors and genres rows, resolved from the free-text columns on write
+    private Long authorId;
+
+    private Long genreId;
 }
@@ -0,0 +1,11 @@
+package com.swiftbeard.library_api.model;
+
+/**
+ * A committed change to a book. For deletions {@code book} holds the row as it was before it was deleted.
+ */
+public record BookChangeEvent(BookChangeType type, Long bookId, Book book) {
+
+    public static BookChangeEvent of(BookChangeType type, Book book) {
+        return new BookChangeEvent(type, book.getId(), book);
+    }
+}
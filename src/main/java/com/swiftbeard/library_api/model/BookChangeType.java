@@ -0,0 +1,7 @@
+package com.swiftbeard.library_api.model;
+
+public enum BookChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,32 @@
+package com.swiftbeard.library_api.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The columns of the books table, so a read can select only what the caller is going to use.
+ */
+public enum BookColumn {
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    ISBN("isbn"),
+    PUBLISH_YEAR("publish_year"),
+    GENRE("genre"),
+    AVAILABLE("available"),
+    AUTHOR_ID("author_id"),
+    GENRE_ID("genre_id");
+
+    public static final Set<BookColumn> ALL = Collections.unmodifiableSet(EnumSet.allOf(BookColumn.class));
+
+    private final String column;
+
+    BookColumn(String column) {
+        this.column = column;
+    }
+
+    public String column() {
+        return column;
+    }
+}
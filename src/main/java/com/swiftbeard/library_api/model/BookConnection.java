@@ -0,0 +1,44 @@
+package com.swiftbeard.library_api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record BookConnection(List<BookEdge> edges, PageInfo pageInfo) {
+
+    /**
+     * Build a connection from a keyset page that was fetched with one extra row,
+     * so that the presence of that row tells us whether a next page exists.
+     */
+    public static BookConnection of(List<Book> rows, int pageSize, boolean hasPreviousPage) {
+        boolean hasNextPage = rows.size() > pageSize;
+        List<Book> page = hasNextPage ? rows.subList(0, pageSize) : rows;
+
+        List<BookEdge> edges = page.stream()
+                .map(book -> new BookEdge(BookCursor.encode(book.getId()), book))
+                .toList();
+
+        String startCursor = edges.isEmpty() ? null : edges.get(0).cursor();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+
+        return new BookConnection(edges, new PageInfo(hasNextPage, hasPreviousPage, startCursor, endCursor));
+    }
+
+    /**
+     * Build a connection from a page of ranked results that starts at the given offset and was fetched
+     * with one extra row. Cursors point at result positions since ranked results have no id order.
+     */
+    public static BookConnection ofRanked(List<Book> rows, int pageSize, int offset) {
+        boolean hasNextPage = rows.size() > pageSize;
+        List<Book> page = hasNextPage ? rows.subList(0, pageSize) : rows;
+
+        List<BookEdge> edges = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            edges.add(new BookEdge(BookCursor.encodeOffset(offset + i + 1), page.get(i)));
+        }
+
+        String startCursor = edges.isEmpty() ? null : edges.get(0).cursor();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+
+        return new BookConnection(edges, new PageInfo(hasNextPage, offset > 0, startCursor, endCursor));
+    }
+}
@@ -0,0 +1,80 @@
+package com.swiftbeard.library_api.model;
+
+import com.swiftbeard.library_api.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor. Clients must treat it as a token; internally it wraps the
+ * id of the last book on a page so the next page can be read with {@code WHERE id > ?},
+ * or, for ranked search results, the position to resume from.
+ */
+public final class BookCursor {
+
+    private static final String PREFIX = "book:";
+    private static final String OFFSET_PREFIX = "offset:";
+
+    private BookCursor() {
+    }
+
+    public static String encode(Long id) {
+        return toToken(PREFIX + id);
+    }
+
+    public static String encodeOffset(int offset) {
+        return toToken(OFFSET_PREFIX + offset);
+    }
+
+    /**
+     * Decode a cursor into the id it points past; a missing cursor means "from the start".
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(fromToken(cursor, PREFIX));
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    /**
+     * Decode a search cursor into the number of ranked results to skip.
+     */
+    public static int decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(fromToken(cursor, OFFSET_PREFIX));
+            if (offset < 0) {
+                throw invalid(cursor);
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static String toToken(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String fromToken(String cursor, String prefix) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(prefix)) {
+                throw invalid(cursor);
+            }
+            return value.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static InvalidPageRequestException invalid(String cursor) {
+        return new InvalidPageRequestException("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,3 @@
+package com.swiftbeard.library_api.model;
+
+public record BookEdge(String cursor, Book node) {}
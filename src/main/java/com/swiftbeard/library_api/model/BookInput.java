@@ -1,3 +1,15 @@
 package com.swiftbeard.library_api.model;
 
-public record BookInput(String title, String author, String isbn, Integer publishYear, String genre, Boolean available) {}
+public record BookInput(String title, String author, Long isbn, Integer publishYear, String genre, Boolean available) {
+
+    public Book toBook() {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .isbn(isbn)
+                .publishYear(publishYear)
+                .genre(genre)
+                .available(available != null ? available : true)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.swiftbeard.library_api.model;
+
+/**
+ * Outcome of one item of a bulk mutation, identified by its position in the request.
+ */
+public record BookResult(int index, Long id, Book book, String error) {
+
+    public static BookResult saved(int index, Book book) {
+        return new BookResult(index, book.getId(), book, null);
+    }
+
+    public static BookResult deleted(int index, Long id) {
+        return new BookResult(index, id, null, null);
+    }
+
+    public static BookResult failed(int index, Long id, String error) {
+        return new BookResult(index, id, null, error);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+}
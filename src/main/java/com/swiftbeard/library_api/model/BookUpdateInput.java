@@ -1,3 +1,19 @@
 package com.swiftbeard.library_api.model;
 
-public record BookUpdateInput(Long id, String title, String author, String isbn, Integer publishYear, String genre, Boolean available) {}
+public record BookUpdateInput(Long id, String title, String author, Long isbn, Integer publishYear, String genre, Boolean available) {
+
+    /**
+     * Fields left null are not changed by the update.
+     */
+    public Book toBook() {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .isbn(isbn)
+                .publishYear(publishYear)
+                .genre(genre)
+                .available(available)
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.swiftbeard.library_api.model;
+
+import java.util.List;
+
+public record BulkBookResult(List<BookResult> results, int succeeded, int failed) {
+
+    public static BulkBookResult of(List<BookResult> results) {
+        int succeeded = (int) results.stream().filter(BookResult::succeeded).count();
+        return new BulkBookResult(results, succeeded, results.size() - succeeded);
+    }
+}
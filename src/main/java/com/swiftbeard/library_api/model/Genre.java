@@ -0,0 +1,20 @@
+package com.swiftbeard.library_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("genres")
+public class Genre {
+    @Id
+    private Long id;
+
+    private String name;
+}
@@ -0,0 +1,12 @@
+package com.swiftbeard.library_api.model;
+
+import java.util.List;
+
+/**
+ * Running totals of an import, reported after every batch. {@code rejections} lists only the rows rejected
+ * in that batch, so a report never holds more than one batch worth of errors; the last report has
+ * {@code done} set.
+ */
+public record ImportProgress(long processed, long imported, long rejected, List<ImportRejection> rejections,
+                             boolean done) {
+}
@@ -0,0 +1,7 @@
+package com.swiftbeard.library_api.model;
+
+/**
+ * A row of an import that was not stored, identified by its line number in the upload.
+ */
+public record ImportRejection(long line, String error) {
+}
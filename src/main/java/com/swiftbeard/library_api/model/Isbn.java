@@ -0,0 +1,119 @@
+package com.swiftbeard.library_api.model;
+
+/**
+ * ISBN parsing and validation. Every ISBN is normalized to its ISBN-13 form and held as a {@code long},
+ * which is also how it is stored.
+ * <p>
+ * Parsing walks the input once, accumulating the digits and both check sums as it goes, so it needs no
+ * regular expression and allocates nothing.
+ */
+public final class Isbn {
+
+    /**
+     * Returned by {@link #parse(CharSequence)} for input that is not a valid ISBN
+     */
+    public static final long INVALID = -1;
+
+    private static final long MIN = 978_000_000_000_0L;
+    private static final long MAX = 979_999_999_999_9L;
+    private static final long ISBN_10_PREFIX = 978_000_000_000L;
+
+    private Isbn() {
+    }
+
+    /**
+     * Parse an ISBN-10 or ISBN-13 and verify its check digit. Single hyphens or spaces between digits and
+     * a leading {@code ISBN}, {@code ISBN-10:} or {@code ISBN-13:} label are accepted.
+     *
+     * @return the ISBN-13, or {@link #INVALID}
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        long digits = 0;
+        int count = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+        boolean afterSeparator = true;
+
+        for (int i = skipLabel(text); i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9' && !checkX && count < 13) {
+                int digit = c - '0';
+                sum10 += (10 - count) * digit;
+                sum13 += (count % 2 == 0 ? 1 : 3) * digit;
+                digits = digits * 10 + digit;
+                count++;
+                afterSeparator = false;
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                // X stands for a check digit of 10 and may only end an ISBN-10
+                sum10 += 10;
+                checkX = true;
+                count++;
+                afterSeparator = false;
+            } else if ((c == '-' || c == ' ') && !afterSeparator) {
+                afterSeparator = true;
+            } else {
+                return INVALID;
+            }
+        }
+        if (afterSeparator) {
+            return INVALID;
+        }
+
+        if (count == 13) {
+            return sum13 % 10 == 0 && digits >= MIN && digits <= MAX ? digits : INVALID;
+        }
+        if (count == 10 && sum10 % 11 == 0) {
+            long body = checkX ? digits : digits / 10;
+            return complete(ISBN_10_PREFIX + body);
+        }
+        return INVALID;
+    }
+
+    /**
+     * @return whether the number is an ISBN-13 with a correct check digit
+     */
+    public static boolean isValid(long isbn) {
+        return isbn >= MIN && isbn <= MAX && complete(isbn / 10) == isbn;
+    }
+
+    /**
+     * Append the ISBN-13 check digit to its first twelve digits.
+     */
+    public static long complete(long firstTwelveDigits) {
+        long remaining = firstTwelveDigits;
+        int sum = 0;
+        // Counting from the right, the twelfth digit has weight 3, the eleventh 1, and so on
+        for (int position = 0; position < 12; position++) {
+            int digit = (int) (remaining % 10);
+            sum += position % 2 == 0 ? 3 * digit : digit;
+            remaining /= 10;
+        }
+        return firstTwelveDigits * 10 + (10 - sum % 10) % 10;
+    }
+
+    private static int skipLabel(CharSequence text) {
+        int length = text.length();
+        if (length < 4 || !isLetter(text, 0, 'i') || !isLetter(text, 1, 's') || !isLetter(text, 2, 'b')
+                || !isLetter(text, 3, 'n')) {
+            return 0;
+        }
+        int i = 4;
+        if (i + 2 < length && text.charAt(i) == '-' && text.charAt(i + 1) == '1'
+                && (text.charAt(i + 2) == '0' || text.charAt(i + 2) == '3')) {
+            i += 3;
+        }
+        if (i < length && text.charAt(i) == ':') {
+            i++;
+        }
+        while (i < length && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isLetter(CharSequence text, int index, char lowerCase) {
+        return (text.charAt(index) | 0x20) == lowerCase;
+    }
+}
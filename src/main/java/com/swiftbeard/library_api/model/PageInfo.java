@@ -0,0 +1,3 @@
+package com.swiftbeard.library_api.model;
+
+public record PageInfo(boolean hasNextPage, boolean hasPreviousPage, String startCursor, String endCursor) {}
@@ -0,0 +1,15 @@
+package com.swiftbeard.library_api.repository;
+
+import com.swiftbeard.library_api.model.Author;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface AuthorRepository extends ReactiveCrudRepository<Author, Long> {
+
+    Mono<Author> findByName(String name);
+
+    Flux<Author> findByNameIn(Collection<String> names);
+}
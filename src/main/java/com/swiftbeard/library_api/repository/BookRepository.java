@@ -5,14 +5,30 @@ import com.swiftbeard.library_api.model.Book;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface BookRepository extends ReactiveCrudRepository<Book, Long> {
+import java.util.Collection;
 
+public interface BookRepository extends ReactiveCrudRepository<Book, Long>, BookRepositoryCustom {
+
+    // author_key and genre_key are indexed UPPER() copies of author and genre, see schema.sql
+
+    @Query("SELECT * FROM books WHERE author_key = UPPER(:author)")
     Flux<Book> findByAuthorIgnoreCase(String author);
 
+    @Query("SELECT * FROM books WHERE genre_key = UPPER(:genre)")
     Flux<Book> findByGenreIgnoreCase(String genre);
 
+    Mono<Book> findByIsbn(Long isbn);
+
+    Flux<Book> findByIsbnIn(Collection<Long> isbns);
+
     @Query("SELECT * FROM books WHERE LOWER(title) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Flux<Book> searchByTitle(String keyword);
-}
 
+    // Keyset pagination: seek past the last seen id instead of using OFFSET, so every page costs the same.
+    // Pages served to clients go through the projected findPage* methods of BookRepositoryCustom.
+
+    @Query("SELECT * FROM books WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<Book> findPage(long afterId, int limit);
+}
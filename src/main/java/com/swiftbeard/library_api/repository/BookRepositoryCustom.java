@@ -0,0 +1,64 @@
+package com.swiftbeard.library_api.repository;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookColumn;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based writes that go straight to SQL instead of saving entities one at a time, and reads that
+ * select only the columns the caller asked for.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Insert all books with one batched statement, assigning the generated ids in input order.
+     */
+    Flux<Book> insertAll(List<Book> books);
+
+    /**
+     * Apply partial updates with one batched statement; null fields are left unchanged.
+     *
+     * @return the number of rows updated for each book, in input order
+     */
+    Flux<Long> updateAll(List<Book> books);
+
+    /**
+     * Update only the non-null fields of the book in a single {@code UPDATE ... WHERE id = ?} round trip.
+     *
+     * @return the row as it is after the update, or empty if no book has that id
+     */
+    Mono<Book> updateNonNullFields(Book book);
+
+    /**
+     * Delete the books with the given ids in one statement.
+     *
+     * @return the rows that were deleted
+     */
+    Flux<Book> deleteAllByIdReturning(Collection<Long> ids);
+
+    /**
+     * Read a keyset page selecting only the given columns; the id is always read. Columns that were not
+     * selected are left null on the returned books.
+     */
+    Flux<Book> findPage(Set<BookColumn> columns, long afterId, int limit);
+
+    Flux<Book> findPageByAuthor(Set<BookColumn> columns, String author, long afterId, int limit);
+
+    Flux<Book> findPageByGenre(Set<BookColumn> columns, String genre, long afterId, int limit);
+
+    /**
+     * Read a keyset page of up to {@code limit} books for each of the given authors in one statement,
+     * ordered by id within each author. The author id is always read.
+     */
+    Flux<Book> findPagesByAuthorIds(Set<BookColumn> columns, Collection<Long> authorIds, long afterId, int limit);
+
+    /**
+     * Read the books with the given ids selecting only the given columns, in no particular order.
+     */
+    Flux<Book> findAllById(Set<BookColumn> columns, Collection<Long> ids);
+}
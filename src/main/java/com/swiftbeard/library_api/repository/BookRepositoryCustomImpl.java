@@ -0,0 +1,252 @@
+package com.swiftbeard.library_api.repository;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookColumn;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO books "
+            + "(title, author, isbn, publish_year, genre, available, author_id, genre_id) "
+            + "VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+
+    private static final String UPDATE_SQL = "UPDATE books SET "
+            + "title = COALESCE($1, title), "
+            + "author = COALESCE($2, author), "
+            + "isbn = COALESCE($3, isbn), "
+            + "publish_year = COALESCE($4, publish_year), "
+            + "genre = COALESCE($5, genre), "
+            + "available = COALESCE($6, available), "
+            + "author_id = COALESCE($7, author_id), "
+            + "genre_id = COALESCE($8, genre_id) "
+            + "WHERE id = $9";
+
+    private static final String DELETE_RETURNING_SQL = "SELECT * FROM OLD TABLE (DELETE FROM books WHERE id IN (:ids))";
+
+    // Conditions of the projected reads; the lookups compare the indexed author_key and genre_key columns
+    static final String PAGE = "id > :afterId ORDER BY id LIMIT :limit";
+    static final String PAGE_BY_AUTHOR = "author_key = UPPER(:author) AND id > :afterId ORDER BY id LIMIT :limit";
+    static final String PAGE_BY_GENRE = "genre_key = UPPER(:genre) AND id > :afterId ORDER BY id LIMIT :limit";
+    static final String BY_IDS = "id IN (:ids)";
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Book> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+        return template.getDatabaseClient().inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_SQL).returnGeneratedValues("id");
+            for (int i = 0; i < books.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bindColumns(statement, books.get(i));
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)))
+                    .index()
+                    .map(generated -> {
+                        Book book = books.get(generated.getT1().intValue());
+                        book.setId(generated.getT2());
+                        return book;
+                    });
+        });
+    }
+
+    @Override
+    public Flux<Long> updateAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+        return template.getDatabaseClient().inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(UPDATE_SQL);
+            for (int i = 0; i < books.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bindColumns(statement, books.get(i));
+                statement.bind(8, books.get(i).getId());
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> Flux.from(result.getRowsUpdated()));
+        });
+    }
+
+    @Override
+    public Mono<Book> updateNonNullFields(Book book) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (book.getTitle() != null) changes.put("title", book.getTitle());
+        if (book.getAuthor() != null) changes.put("author", book.getAuthor());
+        if (book.getIsbn() != null) changes.put("isbn", book.getIsbn());
+        if (book.getPublishYear() != null) changes.put("publish_year", book.getPublishYear());
+        if (book.getGenre() != null) changes.put("genre", book.getGenre());
+        if (book.getAvailable() != null) changes.put("available", book.getAvailable());
+        if (book.getAuthorId() != null) changes.put("author_id", book.getAuthorId());
+        if (book.getGenreId() != null) changes.put("genre_id", book.getGenreId());
+
+        if (changes.isEmpty()) {
+            return template.getDatabaseClient().sql("SELECT * FROM books WHERE id = :id")
+                    .bind("id", book.getId())
+                    .map((row, metadata) -> template.getConverter().read(Book.class, row, metadata))
+                    .one();
+        }
+
+        // FINAL TABLE hands back the updated row from the same statement, so no follow-up SELECT is needed
+        String assignments = changes.keySet().stream()
+                .map(column -> column + " = :" + column)
+                .collect(Collectors.joining(", "));
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient()
+                .sql("SELECT * FROM FINAL TABLE (UPDATE books SET " + assignments + " WHERE id = :id)")
+                .bind("id", book.getId());
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            spec = spec.bind(change.getKey(), change.getValue());
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(Book.class, row, metadata)).one();
+    }
+
+    @Override
+    public Flux<Book> deleteAllByIdReturning(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return template.getDatabaseClient().sql(DELETE_RETURNING_SQL)
+                .bind("ids", ids)
+                .map((row, metadata) -> template.getConverter().read(Book.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Book> findPage(Set<BookColumn> columns, long afterId, int limit) {
+        return select(columns, PAGE, Map.of("afterId", afterId, "limit", limit));
+    }
+
+    @Override
+    public Flux<Book> findPageByAuthor(Set<BookColumn> columns, String author, long afterId, int limit) {
+        return select(columns, PAGE_BY_AUTHOR, Map.of("author", author, "afterId", afterId, "limit", limit));
+    }
+
+    @Override
+    public Flux<Book> findPageByGenre(Set<BookColumn> columns, String genre, long afterId, int limit) {
+        return select(columns, PAGE_BY_GENRE, Map.of("genre", genre, "afterId", afterId, "limit", limit));
+    }
+
+    @Override
+    public Flux<Book> findPagesByAuthorIds(Set<BookColumn> columns, Collection<Long> authorIds, long afterId, int limit) {
+        if (authorIds.isEmpty()) {
+            return Flux.empty();
+        }
+        // One keyset page per author, each read from (author_id, id) and stopping at the limit, so an author
+        // with many books costs no more than one with a few
+        EnumSet<BookColumn> selected = EnumSet.of(BookColumn.ID, BookColumn.AUTHOR_ID);
+        selected.addAll(columns);
+        String select = selected.stream().map(BookColumn::column)
+                .collect(Collectors.joining(", ", "(SELECT ", " FROM books WHERE "));
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("afterId", afterId);
+        parameters.put("limit", limit);
+        StringBuilder sql = new StringBuilder();
+        for (Long authorId : authorIds) {
+            String parameter = "author" + (parameters.size() - 2);
+            parameters.put(parameter, authorId);
+            if (sql.length() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append(select).append(pageByAuthorId(parameter)).append(')');
+        }
+        return select(selected, sql.toString(), parameters);
+    }
+
+    @Override
+    public Flux<Book> findAllById(Set<BookColumn> columns, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return select(columns, BY_IDS, Map.of("ids", ids));
+    }
+
+    /**
+     * Condition of one author's keyset page, with the author id bound to the given parameter
+     */
+    static String pageByAuthorId(String parameter) {
+        return "author_id = :" + parameter + " AND " + PAGE;
+    }
+
+    private Flux<Book> select(Set<BookColumn> columns, String condition, Map<String, Object> parameters) {
+        EnumSet<BookColumn> selected = EnumSet.of(BookColumn.ID);
+        selected.addAll(columns);
+        String sql = selected.stream().map(BookColumn::column)
+                .collect(Collectors.joining(", ", "SELECT ", " FROM books WHERE " + condition));
+        return select(selected, sql, parameters);
+    }
+
+    /**
+     * Run a query whose columns are the selected ones, in {@link BookColumn} order
+     */
+    private Flux<Book> select(EnumSet<BookColumn> selected, String sql, Map<String, Object> parameters) {
+        BookColumn[] order = selected.toArray(BookColumn[]::new);
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec.map((row, metadata) -> readColumns(row, order)).all();
+    }
+
+    /**
+     * Read the selected columns by position straight into a book, skipping the entity converter.
+     */
+    private static Book readColumns(Row row, BookColumn[] columns) {
+        Book book = new Book();
+        // Unselected columns stay null, including available which would otherwise default to true
+        book.setAvailable(null);
+        for (int i = 0; i < columns.length; i++) {
+            switch (columns[i]) {
+                case ID -> book.setId(row.get(i, Long.class));
+                case TITLE -> book.setTitle(row.get(i, String.class));
+                case AUTHOR -> book.setAuthor(row.get(i, String.class));
+                case ISBN -> book.setIsbn(row.get(i, Long.class));
+                case PUBLISH_YEAR -> book.setPublishYear(row.get(i, Integer.class));
+                case GENRE -> book.setGenre(row.get(i, String.class));
+                case AVAILABLE -> book.setAvailable(row.get(i, Boolean.class));
+                case AUTHOR_ID -> book.setAuthorId(row.get(i, Long.class));
+                case GENRE_ID -> book.setGenreId(row.get(i, Long.class));
+            }
+        }
+        return book;
+    }
+
+    private static void bindColumns(Statement statement, Book book) {
+        bind(statement, 0, book.getTitle(), String.class);
+        bind(statement, 1, book.getAuthor(), String.class);
+        bind(statement, 2, book.getIsbn(), Long.class);
+        bind(statement, 3, book.getPublishYear(), Integer.class);
+        bind(statement, 4, book.getGenre(), String.class);
+        bind(statement, 5, book.getAvailable(), Boolean.class);
+        bind(statement, 6, book.getAuthorId(), Long.class);
+        bind(statement, 7, book.getGenreId(), Long.class);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
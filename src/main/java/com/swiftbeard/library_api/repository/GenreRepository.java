@@ -0,0 +1,15 @@
+package com.swiftbeard.library_api.repository;
+
+import com.swiftbeard.library_api.model.Genre;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface GenreRepository extends ReactiveCrudRepository<Genre, Long> {
+
+    Mono<Genre> findByName(String name);
+
+    Flux<Genre> findByNameIn(Collection<String> names);
+}
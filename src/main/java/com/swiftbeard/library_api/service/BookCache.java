@@ -0,0 +1,58 @@
+package com.swiftbeard.library_api.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.config.ReadWriteRoutingConnectionFactory;
+import com.swiftbeard.library_api.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Bounded near cache for books looked up by id. Size and hit rate are exported as the {@code cache.*}
+ * metrics tagged {@code cache=books.by-id}.
+ */
+@Component
+public class BookCache {
+
+    private final AsyncCache<Long, Book> cache;
+
+    public BookCache(LibraryProperties properties, MeterRegistry meterRegistry) {
+        LibraryProperties.Cache config = properties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTimeToLive())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "books.by-id");
+    }
+
+    /**
+     * Read-through lookup. Concurrent misses for the same id share one in-flight load, and a
+     * subscriber cancelling does not cancel the load for the others. Empty loads are not cached.
+     * The load runs under the Reactor context of the caller that started it, marked as filling a cache.
+     */
+    public Mono<Book> get(Long id, Function<Long, Mono<Book>> loader) {
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> cache.get(id, (key, executor) ->
+                ReadWriteRoutingConnectionFactory.fillingCache(loader.apply(key)).contextWrite(context).toFuture()), true));
+    }
+
+    /**
+     * Drop an entry, including a load that is still in flight, so the next read goes to the database.
+     */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Hit, miss, load and eviction counters since startup
+     */
+    CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+}
@@ -0,0 +1,12 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.BookChangeEvent;
+
+/**
+ * Told about every committed book change before it is published to subscribers. Unlike a subscription, a
+ * listener is called on the committing thread and never misses an event, so it suits cache invalidation.
+ */
+public interface BookChangeListener {
+
+    void onBookChanged(BookChangeEvent event);
+}
@@ -0,0 +1,105 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed book changes out to subscribers.
+ * <p>
+ * The publisher never waits for subscribers: every subscriber drains its own bounded buffer, and when a
+ * slow one fills up the configured overflow policy decides which of its events are dropped.
+ */
+@Component
+@Slf4j
+public class BookChangePublisher {
+
+    private final Sinks.Many<BookChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final LibraryProperties.Subscriptions config;
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public BookChangePublisher(LibraryProperties properties) {
+        this.config = properties.getSubscriptions();
+    }
+
+    /**
+     * Writes commit on different threads, so emissions are serialized here
+     */
+    public synchronized void publish(BookChangeEvent event) {
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * Changes to books matching the optional genre and author filters, compared case-insensitively.
+     */
+    public Flux<BookChangeEvent> subscribe(String genre, String author) {
+        Flux<BookChangeEvent> events = sink.asFlux()
+                .filter(event -> matches(event.book(), genre, author));
+
+        return switch (config.getOverflowPolicy()) {
+            case DROP_OLDEST -> events.onBackpressureBuffer(config.getBufferSize(),
+                    dropped -> droppedEvents.incrementAndGet(), BufferOverflowStrategy.DROP_OLDEST);
+            case CONFLATE -> conflate(events, config.getBufferSize());
+        };
+    }
+
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+
+    public long droppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private static boolean matches(Book book, String genre, String author) {
+        return (genre == null || genre.equalsIgnoreCase(book.getGenre()))
+                && (author == null || author.equalsIgnoreCase(book.getAuthor()));
+    }
+
+    /**
+     * Buffer at most one pending event per book: a newer change replaces the queued one in place, so a
+     * slow subscriber sees the latest state of each book in the order the books first changed.
+     */
+    private Flux<BookChangeEvent> conflate(Flux<BookChangeEvent> events, int maxPending) {
+        return Flux.create(emitter -> {
+            Map<Long, BookChangeEvent> pending = new LinkedHashMap<>();
+            Runnable drain = () -> {
+                synchronized (pending) {
+                    while (emitter.requestedFromDownstream() > 0 && !pending.isEmpty()) {
+                        Iterator<BookChangeEvent> oldest = pending.values().iterator();
+                        BookChangeEvent next = oldest.next();
+                        oldest.remove();
+                        emitter.next(next);
+                    }
+                }
+            };
+
+            Disposable upstream = events.subscribe(event -> {
+                synchronized (pending) {
+                    pending.put(event.bookId(), event);
+                    if (pending.size() > maxPending) {
+                        Iterator<BookChangeEvent> oldest = pending.values().iterator();
+                        oldest.next();
+                        oldest.remove();
+                        droppedEvents.incrementAndGet();
+                    }
+                }
+                drain.run();
+            }, emitter::error, emitter::complete);
+
+            emitter.onRequest(requested -> drain.run());
+            emitter.onDispose(upstream);
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.swiftbeard.library_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookResult;
+import com.swiftbeard.library_api.model.ImportProgress;
+import com.swiftbeard.library_api.model.ImportRejection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Imports books from an NDJSON or CSV upload. Lines are parsed as they arrive, grouped into batches and
+ * written through {@link BookService#createBooks(List)}, one transaction per batch with a bounded number of
+ * batches in flight, so memory use depends on the batch size and not on the size of the upload.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private record BatchOutcome(int rows, int imported, List<ImportRejection> rejections) {
+    }
+
+    private final BookService bookService;
+    private final LibraryProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param lines the lines of the upload, without line terminators
+     * @return progress after each batch, in upload order, ending with a report that has {@code done} set
+     */
+    public Flux<ImportProgress> importBooks(Flux<String> lines, Format format) {
+        LibraryProperties.BulkImport settings = properties.getBulkImport();
+        return Flux.defer(() -> {
+                    BookRecordParser parser = format == Format.CSV
+                            ? BookRecordParser.csv()
+                            : BookRecordParser.ndjson(objectMapper);
+                    long[] totals = new long[3];
+
+                    return lines.index()
+                            .filter(line -> !line.getT2().isBlank())
+                            .<BookRecordParser.ParsedRecord>handle((line, sink) -> {
+                                BookRecordParser.ParsedRecord parsed = parser.parse(line.getT1() + 1, line.getT2());
+                                if (parsed != null) {
+                                    sink.next(parsed);
+                                }
+                            })
+                            .buffer(settings.getBatchSize())
+                            .flatMapSequential(this::importBatch, settings.getConcurrency())
+                            .map(outcome -> {
+                                totals[0] += outcome.rows();
+                                totals[1] += outcome.imported();
+                                totals[2] += outcome.rows() - outcome.imported();
+                                return new ImportProgress(totals[0], totals[1], totals[2], outcome.rejections(), false);
+                            })
+                            .concatWith(Mono.fromSupplier(() -> {
+                                log.info("Imported {} of {} books, rejected {}", totals[1], totals[0], totals[2]);
+                                return new ImportProgress(totals[0], totals[1], totals[2], List.of(), true);
+                            }));
+                })
+                .doOnError(e -> log.error("Error importing books", e));
+    }
+
+    private Mono<BatchOutcome> importBatch(List<BookRecordParser.ParsedRecord> records) {
+        List<ImportRejection> rejections = new ArrayList<>();
+        List<BookRecordParser.ParsedRecord> parsed = new ArrayList<>(records.size());
+        for (BookRecordParser.ParsedRecord record : records) {
+            if (record.error() != null) {
+                rejections.add(new ImportRejection(record.line(), record.error()));
+            } else {
+                parsed.add(record);
+            }
+        }
+        if (parsed.isEmpty()) {
+            return Mono.just(new BatchOutcome(records.size(), 0, rejections));
+        }
+
+        List<Book> books = parsed.stream().map(BookRecordParser.ParsedRecord::book).toList();
+        return bookService.createBooks(books)
+                .map(result -> {
+                    for (BookResult item : result.results()) {
+                        if (!item.succeeded()) {
+                            rejections.add(new ImportRejection(parsed.get(item.index()).line(), item.error()));
+                        }
+                    }
+                    rejections.sort(Comparator.comparingLong(ImportRejection::line));
+                    return new BatchOutcome(records.size(), result.succeeded(), rejections);
+                })
+                // A failed batch is rolled back as a whole, e.g. when a concurrent batch took one of its ISBNs
+                .onErrorResume(e -> {
+                    log.warn("Import batch of {} rows failed", records.size(), e);
+                    for (BookRecordParser.ParsedRecord record : parsed) {
+                        rejections.add(new ImportRejection(record.line(), "Batch failed: " + e.getMessage()));
+                    }
+                    rejections.sort(Comparator.comparingLong(ImportRejection::line));
+                    return Mono.just(new BatchOutcome(records.size(), 0, rejections));
+                });
+    }
+}
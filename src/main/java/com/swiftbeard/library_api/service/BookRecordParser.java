@@ -0,0 +1,188 @@
+package com.swiftbeard.library_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.exception.InvalidImportException;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns one line of an import into a book. A parser is used for a single upload, since a CSV parser takes
+ * its column order from the first line.
+ */
+abstract class BookRecordParser {
+
+    /**
+     * A parsed line: either a book to validate and store, or the reason the line could not be read.
+     */
+    record ParsedRecord(long line, Book book, String error) {
+    }
+
+    /**
+     * @return the parsed record, or null if the line holds no record (such as a CSV header)
+     */
+    abstract ParsedRecord parse(long line, String text);
+
+    static BookRecordParser ndjson(ObjectMapper objectMapper) {
+        return new Ndjson(objectMapper);
+    }
+
+    static BookRecordParser csv() {
+        return new Csv();
+    }
+
+    private static ParsedRecord record(long line, String title, String author, String isbn, String publishYear,
+                                       String genre, String available) {
+        Long parsedIsbn = null;
+        if (isbn != null) {
+            long value = Isbn.parse(isbn);
+            if (value == Isbn.INVALID) {
+                return new ParsedRecord(line, null, "Invalid ISBN: " + isbn);
+            }
+            parsedIsbn = value;
+        }
+        Integer parsedYear = null;
+        if (publishYear != null) {
+            try {
+                parsedYear = Integer.valueOf(publishYear);
+            } catch (NumberFormatException e) {
+                return new ParsedRecord(line, null, "Publish year must be a number: " + publishYear);
+            }
+        }
+        Boolean parsedAvailable = true;
+        if (available != null) {
+            if (!available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+                return new ParsedRecord(line, null, "Available must be true or false: " + available);
+            }
+            parsedAvailable = Boolean.valueOf(available);
+        }
+        Book book = Book.builder()
+                .title(title)
+                .author(author)
+                .isbn(parsedIsbn)
+                .publishYear(parsedYear)
+                .genre(genre)
+                .available(parsedAvailable)
+                .build();
+        return new ParsedRecord(line, book, null);
+    }
+
+    /**
+     * Split a line into fields, unquoting RFC 4180 quoted fields. Empty fields are null. Quoted fields
+     * cannot span lines, since the upload is split into lines before it is parsed.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+
+    private static final class Ndjson extends BookRecordParser {
+
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        ParsedRecord parse(long line, String text) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new ParsedRecord(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new ParsedRecord(line, null, "Expected a JSON object");
+            }
+            return record(line, field(node, "title"), field(node, "author"), field(node, "isbn"),
+                    field(node, "publishYear"), field(node, "genre"), field(node, "available"));
+        }
+
+        private static String field(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    private static final class Csv extends BookRecordParser {
+
+        private static final Map<String, String> HEADER_ALIASES = Map.of("publish_year", "publishyear");
+
+        private Map<String, Integer> columns;
+
+        @Override
+        ParsedRecord parse(long line, String text) {
+            List<String> fields;
+            try {
+                fields = splitCsv(text);
+            } catch (IllegalArgumentException e) {
+                if (columns == null) {
+                    throw new InvalidImportException("Malformed CSV header: " + e.getMessage());
+                }
+                return new ParsedRecord(line, null, "Malformed CSV: " + e.getMessage());
+            }
+            if (columns == null) {
+                columns = header(fields);
+                return null;
+            }
+            return record(line, field(fields, "title"), field(fields, "author"), field(fields, "isbn"),
+                    field(fields, "publishyear"), field(fields, "genre"), field(fields, "available"));
+        }
+
+        private static Map<String, Integer> header(List<String> fields) {
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i) != null) {
+                    String name = fields.get(i).trim().toLowerCase(Locale.ROOT);
+                    columns.put(HEADER_ALIASES.getOrDefault(name, name), i);
+                }
+            }
+            if (!columns.containsKey("title") || !columns.containsKey("author") || !columns.containsKey("isbn")) {
+                throw new InvalidImportException("CSV header must name the title, author and isbn columns");
+            }
+            return columns;
+        }
+
+        private String field(List<String> fields, String name) {
+            Integer index = columns.get(name);
+            return index == null || index >= fields.size() ? null : fields.get(index);
+        }
+    }
+}
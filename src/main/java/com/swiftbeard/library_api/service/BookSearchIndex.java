@@ -0,0 +1,431 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over book titles, authors and genres.
+ * <p>
+ * Terms are case-folded alphanumeric tokens. Every query token is matched as a prefix, all query tokens
+ * must match, and results are ranked by the weight of the fields they matched in (title before author
+ * before genre), with whole-word matches counting double.
+ * <p>
+ * Prefix expansion is bounded so a query costs about the same however short its tokens are: tokens
+ * shorter than {@value #MIN_PREFIX_LENGTH} characters only match whole words, and a longer token matches
+ * at most {@value #MAX_PREFIX_TERMS} longer terms besides itself, the first ones in alphabetical order.
+ * <p>
+ * The existing books are loaded with {@link #load} between {@link #beginLoad} and {@link #endLoad}, while
+ * mutations keep calling {@link #index} and {@link #remove}. A loaded row is dropped if its book was changed
+ * since the load began, as the row may have been read before that change.
+ */
+@Component
+public class BookSearchIndex {
+
+    static final int MIN_PREFIX_LENGTH = 3;
+    static final int MAX_PREFIX_TERMS = 256;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int GENRE_WEIGHT = 1;
+    private static final int EXACT_MATCH_BOOST = 2;
+    private static final int SCORE_BITS = 5;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    // Books indexed or removed since the running load began, null when no load is running
+    private Set<Long> changedDuringLoad;
+
+    /**
+     * Add a book to the index, replacing whatever was indexed for its id before.
+     */
+    public void index(Book book) {
+        add(book, false);
+    }
+
+    /**
+     * Add a book read while loading the existing books, unless it was indexed or removed since the load began.
+     */
+    public void load(Book book) {
+        add(book, true);
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(id);
+            }
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the books matching every token of the query, best match first.
+     *
+     * @param offset number of ranked results to skip
+     * @param limit  maximum number of ids to return
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, tokens::add);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Matches scores = null;
+        lock.readLock().lock();
+        try {
+            List<Expansion> expansions = new ArrayList<>();
+            for (String token : tokens) {
+                expansions.add(expand(token));
+            }
+            // Start from the rarest token, so later tokens only have to score the books still matching
+            expansions.sort(Comparator.comparingLong(Expansion::postings));
+            for (Expansion expansion : expansions) {
+                scores = expansion.score(scores);
+                if (scores.size == 0) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.topRanked(offset, limit);
+    }
+
+    private Expansion expand(String token) {
+        List<Map.Entry<String, Postings>> terms = new ArrayList<>();
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            Postings exact = postings.get(token);
+            if (exact != null) {
+                terms.add(Map.entry(token, exact));
+            }
+        } else {
+            // The token itself sorts before every longer term it is a prefix of
+            int longer = 0;
+            for (Map.Entry<String, Postings> term : postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+                if (term.getKey().length() > token.length() && longer++ == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                terms.add(term);
+            }
+        }
+        return new Expansion(token, terms, terms.stream().mapToLong(term -> term.getValue().size).sum());
+    }
+
+    /**
+     * Reuse the instance already held by the term dictionary so documents don't each keep a copy of the term.
+     */
+    private String canonicalTerm(String term) {
+        String existing = postings.ceilingKey(term);
+        return term.equals(existing) ? existing : term;
+    }
+
+    private void add(Book book, boolean loaded) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, book.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, book.getAuthor(), AUTHOR_WEIGHT);
+        addTerms(terms, book.getGenre(), GENRE_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                if (loaded && changedDuringLoad.contains(book.getId())) {
+                    return;
+                }
+                if (!loaded) {
+                    changedDuringLoad.add(book.getId());
+                }
+            }
+            unlink(book.getId());
+            String[] indexed = new String[terms.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                String key = canonicalTerm(term.getKey());
+                postings.computeIfAbsent(key, k -> new Postings()).add(book.getId(), term.getValue());
+                indexed[i++] = key;
+            }
+            documents.put(book.getId(), indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unlink(Long id) {
+        String[] terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings ids = postings.get(term);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        // A word repeated within one field counts once; the same word in several fields adds up
+        Set<String> fieldTerms = new HashSet<>();
+        tokenize(text, fieldTerms::add);
+        fieldTerms.forEach(term -> terms.merge(term, weight, Integer::sum));
+    }
+
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (!token.isEmpty()) {
+                sink.accept(token.toString());
+                token.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (!token.isEmpty()) {
+            sink.accept(token.toString());
+        }
+    }
+
+    /**
+     * The terms one query token matches, and how many postings they hold between them.
+     */
+    private record Expansion(String token, List<Map.Entry<String, Postings>> terms, long postings) {
+
+        /**
+         * Score the books matching the token, keeping only those also in {@code previous} when given and
+         * adding their score from it.
+         */
+        Matches score(Matches previous) {
+            if (previous != null && (long) previous.size * terms.size() * Long.SIZE < postings) {
+                return lookUp(previous);
+            }
+
+            // Pack id and score into one long so sorting groups each book's matches, lowest score first
+            long[] packed = new long[(int) postings];
+            int n = 0;
+            for (Map.Entry<String, Postings> term : terms) {
+                n = term.getValue().copyScored(packed, n, boost(term.getKey()));
+            }
+            if (terms.size() > 1) {
+                Arrays.sort(packed);
+            }
+
+            Matches matches = new Matches(previous == null ? n : Math.min(n, previous.size));
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                long id = packed[i] >>> SCORE_BITS;
+                if (i + 1 < n && packed[i + 1] >>> SCORE_BITS == id) {
+                    continue;
+                }
+                int score = (int) (packed[i] & SCORE_MASK);
+                if (previous != null) {
+                    while (p < previous.size && previous.ids[p] < id) {
+                        p++;
+                    }
+                    if (p == previous.size || previous.ids[p] != id) {
+                        continue;
+                    }
+                    score += previous.scores[p];
+                }
+                matches.add(id, score);
+            }
+            return matches;
+        }
+
+        /**
+         * Score only the books in {@code previous}, by binary search in each term's postings, for when
+         * they are far fewer than the postings.
+         */
+        private Matches lookUp(Matches previous) {
+            Matches matches = new Matches(previous.size);
+            for (int p = 0; p < previous.size; p++) {
+                int best = 0;
+                for (Map.Entry<String, Postings> term : terms) {
+                    best = Math.max(best, term.getValue().weightOf(previous.ids[p]) * boost(term.getKey()));
+                }
+                if (best > 0) {
+                    matches.add(previous.ids[p], best + previous.scores[p]);
+                }
+            }
+            return matches;
+        }
+
+        private int boost(String term) {
+            return term.length() == token.length() ? EXACT_MATCH_BOOST : 1;
+        }
+    }
+
+    /**
+     * Posting list packed into a primitive array: each entry holds the book id in the high bits and the
+     * field weight in the low bits, which keeps a million-book index to a few bytes per posting. Entries
+     * are kept sorted by id, so removing one is a binary search and merging lists needs no hashing.
+     */
+    private static final class Postings {
+
+        private static final int WEIGHT_BITS = 4;
+        private static final long WEIGHT_MASK = (1L << WEIGHT_BITS) - 1;
+
+        private long[] entries = new long[2];
+        private int size;
+
+        void add(long id, int weight) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            // Ids mostly arrive in ascending order, when the index is built and as books are created
+            int at = size == 0 || entries[size - 1] >>> WEIGHT_BITS < id ? size : -indexOf(id) - 1;
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = id << WEIGHT_BITS | Math.min(weight, WEIGHT_MASK);
+            size++;
+        }
+
+        boolean remove(long id) {
+            int at = indexOf(id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @return the weight of the id's entry, or 0 if it has none
+         */
+        int weightOf(long id) {
+            int at = indexOf(id);
+            return at < 0 ? 0 : (int) (entries[at] & WEIGHT_MASK);
+        }
+
+        /**
+         * Copy the entries into {@code target} from {@code from} as id and boosted weight packed for
+         * {@link Matches}, in id order.
+         *
+         * @return the index after the last entry copied
+         */
+        int copyScored(long[] target, int from, int boost) {
+            for (int i = 0; i < size; i++) {
+                target[from++] = entries[i] >>> WEIGHT_BITS << SCORE_BITS | (entries[i] & WEIGHT_MASK) * boost;
+            }
+            return from;
+        }
+
+        /**
+         * @return the index of the entry for the id, or {@code -(insertion point) - 1} if there is none
+         */
+        private int indexOf(long id) {
+            // Weights are at least 1, so no entry equals the bare shifted id and the search ends on its slot
+            int slot = -Arrays.binarySearch(entries, 0, size, id << WEIGHT_BITS) - 1;
+            return slot < size && entries[slot] >>> WEIGHT_BITS == id ? slot : -slot - 1;
+        }
+    }
+
+    /**
+     * Books matching the query so far, in id order, with their scores.
+     */
+    private static final class Matches {
+
+        private final long[] ids;
+        private final int[] scores;
+        private int size;
+        private int maxScore;
+
+        Matches(int capacity) {
+            ids = new long[capacity];
+            scores = new int[capacity];
+        }
+
+        void add(long id, int score) {
+            ids[size] = id;
+            scores[size++] = score;
+            maxScore = Math.max(maxScore, score);
+        }
+
+        List<Long> topRanked(int offset, int limit) {
+            // Scores are small numbers, so count the matches of each score instead of sorting them, then
+            // give every score only as many places in the ranking as are wanted
+            int[] counts = new int[maxScore + 1];
+            for (int i = 0; i < size; i++) {
+                counts[scores[i]]++;
+            }
+            long wanted = (long) offset + limit;
+            int[] next = new int[counts.length];
+            int[] end = new int[counts.length];
+            int ranked = 0;
+            for (int score = maxScore; score >= 0; score--) {
+                next[score] = ranked;
+                ranked += (int) Math.min(counts[score], wanted - ranked);
+                end[score] = ranked;
+            }
+
+            // Matches come in id order, so each score's places fill with its lowest ids
+            long[] ranking = new long[ranked];
+            for (int i = 0; i < size; i++) {
+                int score = scores[i];
+                if (next[score] < end[score]) {
+                    ranking[next[score]++] = ids[i];
+                }
+            }
+            if (offset >= ranked) {
+                return List.of();
+            }
+            return Arrays.stream(ranking, offset, ranked).boxed().toList();
+        }
+    }
+}
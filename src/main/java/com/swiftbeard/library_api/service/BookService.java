@@ -2,21 +2,65 @@ package com.swiftbeard.library_api.service;
 
 
 import com.swiftbeard.library_api.exception.BookNotFoundException;
+import com.swiftbeard.library_api.exception.InvalidPageRequestException;
+import com.swiftbeard.library_api.model.Author;
 import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import com.swiftbeard.library_api.model.BookColumn;
+import com.swiftbeard.library_api.model.BookConnection;
+import com.swiftbeard.library_api.model.BookCursor;
+import com.swiftbeard.library_api.model.BookResult;
+import com.swiftbeard.library_api.model.BulkBookResult;
+import com.swiftbeard.library_api.model.Genre;
+import com.swiftbeard.library_api.repository.AuthorRepository;
 import com.swiftbeard.library_api.repository.BookRepository;
+import com.swiftbeard.library_api.repository.GenreRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class BookService {
+public class BookService implements ApplicationRunner {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int INDEX_BATCH_SIZE = 1000;
+    private static final int BULK_BATCH_SIZE = 500;
 
     private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final BookCache bookCache;
+    private final InFlightReads inFlightReads;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookValidator bookValidator;
+    private final BookChangePublisher bookChangePublisher;
+    private final List<BookChangeListener> bookChangeListeners;
 
     public Flux<Book> getAllBooks() {
         return bookRepository.findAll()
@@ -25,7 +69,7 @@ public class BookService {
     }
 
     public Mono<Book> getBookById(Long id) {
-        return bookRepository.findById(id)
+        return bookCache.get(id, key -> bookRepository.findById(key))
                 .doOnSuccess(book -> {
                     if (book != null) {
                         log.info("Retrieved book with id: {}", id);
@@ -37,6 +81,19 @@ public class BookService {
                 .doOnError(e -> log.error("Error retrieving book with id: {}", id, e));
     }
 
+    public Mono<Book> getBookByIsbn(Long isbn) {
+        return inFlightReads.share(Arrays.asList("bookByIsbn", isbn), Set.of(BookTags.isbn(isbn)), () -> bookRepository.findByIsbn(isbn))
+                .doOnSuccess(book -> {
+                    if (book != null) {
+                        log.info("Retrieved book with ISBN: {}", isbn);
+                    } else {
+                        log.warn("Book with ISBN: {} not found", isbn);
+                    }
+                })
+                .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with ISBN: " + isbn)))
+                .doOnError(e -> log.error("Error retrieving book with ISBN: {}", isbn, e));
+    }
+
     public Flux<Book> getBooksByAuthor(String author) {
         return bookRepository.findByAuthorIgnoreCase(author)
                 .doOnComplete(() -> log.info("Retrieved books by author: {}", author))
@@ -49,38 +106,518 @@ public class BookService {
                 .doOnError(e -> log.error("Error retrieving books by genre: {}", genre, e));
     }
 
+    /**
+     * Read a page of books selecting only the given columns, as do the other paged queries below.
+     * Concurrent identical reads share one query through {@link InFlightReads}.
+     */
+    public Mono<BookConnection> getBooks(Integer first, String after, Set<BookColumn> columns) {
+        return inFlightReads.share(Arrays.asList("books", first, after, columns), Set.of(BookTags.CATALOG), () -> {
+                    int pageSize = pageSize(first);
+                    long afterId = BookCursor.decode(after);
+                    return bookRepository.findPage(columns, afterId, pageSize + 1)
+                            .collectList()
+                            .map(rows -> BookConnection.of(rows, pageSize, afterId > 0));
+                })
+                .doOnSuccess(page -> log.info("Retrieved page of {} books", page.edges().size()))
+                .doOnError(e -> log.error("Error retrieving page of books", e));
+    }
+
+    public Mono<BookConnection> getBooksByAuthor(String author, Integer first, String after, Set<BookColumn> columns) {
+        return inFlightReads.share(Arrays.asList("booksByAuthor", lowerCase(author), first, after, columns),
+                Set.of(BookTags.author(author)), () -> {
+                    int pageSize = pageSize(first);
+                    long afterId = BookCursor.decode(after);
+                    return bookRepository.findPageByAuthor(columns, author, afterId, pageSize + 1)
+                            .collectList()
+                            .map(rows -> BookConnection.of(rows, pageSize, afterId > 0));
+                })
+                .doOnSuccess(page -> log.info("Retrieved page of {} books by author: {}", page.edges().size(), author))
+                .doOnError(e -> log.error("Error retrieving books by author: {}", author, e));
+    }
+
+    public Mono<BookConnection> getBooksByGenre(String genre, Integer first, String after, Set<BookColumn> columns) {
+        return inFlightReads.share(Arrays.asList("booksByGenre", lowerCase(genre), first, after, columns),
+                Set.of(BookTags.genre(genre)), () -> {
+                    int pageSize = pageSize(first);
+                    long afterId = BookCursor.decode(after);
+                    return bookRepository.findPageByGenre(columns, genre, afterId, pageSize + 1)
+                            .collectList()
+                            .map(rows -> BookConnection.of(rows, pageSize, afterId > 0));
+                })
+                .doOnSuccess(page -> log.info("Retrieved page of {} books by genre: {}", page.edges().size(), genre))
+                .doOnError(e -> log.error("Error retrieving books by genre: {}", genre, e));
+    }
+
+    public Mono<BookConnection> searchBooks(String query, Integer first, String after, Set<BookColumn> columns) {
+        return inFlightReads.share(Arrays.asList("searchBooks", query, first, after, columns), Set.of(BookTags.CATALOG), () -> {
+                    int pageSize = pageSize(first);
+                    int offset = BookCursor.decodeOffset(after);
+                    List<Long> ids = bookSearchIndex.search(query, offset, pageSize + 1);
+                    if (ids.isEmpty()) {
+                        return Mono.just(BookConnection.ofRanked(List.of(), pageSize, offset));
+                    }
+                    return bookRepository.findAllById(columns, ids)
+                            .collectMap(Book::getId)
+                            .map(byId -> ranked(ids, byId))
+                            .map(rows -> BookConnection.ofRanked(rows, pageSize, offset));
+                })
+                .doOnSuccess(page -> log.info("Found {} books matching: {}", page.edges().size(), query))
+                .doOnError(e -> log.error("Error searching books for: {}", query, e));
+    }
+
+    /**
+     * Stream every book in id order, optionally filtered by author and/or genre. Books are read in keyset
+     * pages of the given size and only as fast as the subscriber requests them, so memory use does not
+     * grow with the size of the catalog.
+     */
+    public Flux<Book> exportBooks(String author, String genre, int pageSize) {
+        Function<Long, Flux<Book>> page;
+        if (author != null) {
+            page = afterId -> bookRepository.findPageByAuthor(BookColumn.ALL, author, afterId, pageSize);
+        } else if (genre != null) {
+            page = afterId -> bookRepository.findPageByGenre(BookColumn.ALL, genre, afterId, pageSize);
+        } else {
+            page = afterId -> bookRepository.findPage(BookColumn.ALL, afterId, pageSize);
+        }
+        // With both filters the author index narrows the rows and the genre is checked here
+        boolean filterGenre = author != null && genre != null;
+
+        return page.apply(0L)
+                .collectList()
+                .expand(rows -> rows.size() < pageSize
+                        ? Mono.empty()
+                        : page.apply(rows.get(rows.size() - 1).getId()).collectList())
+                .concatMapIterable(rows -> rows)
+                .filter(book -> !filterGenre || genre.equalsIgnoreCase(book.getGenre()))
+                .doOnComplete(() -> log.info("Exported books by author: {}, genre: {}", author, genre))
+                .doOnError(e -> log.error("Error exporting books by author: {}, genre: {}", author, genre, e));
+    }
+
+    /**
+     * Resolve the author of every book in a single {@code IN (...)} query.
+     */
+    public Mono<Map<Book, Author>> getAuthorsOf(List<Book> books) {
+        Set<Long> ids = referencedIds(books, Book::getAuthorId);
+        return authorRepository.findAllById(ids)
+                .collectMap(Author::getId)
+                .map(byId -> byReference(books, Book::getAuthorId, byId))
+                .doOnError(e -> log.error("Error resolving authors for {} books", books.size(), e));
+    }
+
+    /**
+     * Resolve the genre of every book in a single {@code IN (...)} query.
+     */
+    public Mono<Map<Book, Genre>> getGenresOf(List<Book> books) {
+        Set<Long> ids = referencedIds(books, Book::getGenreId);
+        return genreRepository.findAllById(ids)
+                .collectMap(Genre::getId)
+                .map(byId -> byReference(books, Book::getGenreId, byId))
+                .doOnError(e -> log.error("Error resolving genres for {} books", books.size(), e));
+    }
+
+    /**
+     * Read a keyset page of books for each author in a single query, so a nested {@code Author.books}
+     * costs at most one page per author however many books the author has.
+     */
+    public Mono<Map<Long, BookConnection>> getBooksOfAuthors(Collection<Long> authorIds, Integer first, String after,
+                                                            Set<BookColumn> columns) {
+        if (authorIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Mono.defer(() -> {
+                    int pageSize = pageSize(first);
+                    long afterId = BookCursor.decode(after);
+                    return bookRepository.findPagesByAuthorIds(columns, authorIds, afterId, pageSize + 1)
+                            .collectMultimap(Book::getAuthorId)
+                            .map(byAuthorId -> {
+                                Map<Long, BookConnection> result = new HashMap<>();
+                                for (Long authorId : authorIds) {
+                                    Collection<Book> rows = byAuthorId.get(authorId);
+                                    result.put(authorId, BookConnection.of(
+                                            rows == null ? List.of() : List.copyOf(rows), pageSize, afterId > 0));
+                                }
+                                return result;
+                            });
+                })
+                .doOnError(e -> log.error("Error loading books for {} authors", authorIds.size(), e));
+    }
+
+    /**
+     * Build the search index as an application runner, so the application only reports itself ready for
+     * traffic (and {@code /actuator/health/readiness} only turns UP) once searches see the whole catalog.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        buildSearchIndex();
+    }
+
+    /**
+     * Load every book into the search index. Books are read in keyset pages so the whole table is never held
+     * in memory at once, and books changed while the pages are read are left as the mutations indexed them.
+     */
+    public void buildSearchIndex() {
+        bookSearchIndex.beginLoad();
+        try {
+            Long indexed = bookRepository.findPage(0L, INDEX_BATCH_SIZE)
+                    .collectList()
+                    .expand(page -> page.size() < INDEX_BATCH_SIZE
+                            ? Mono.empty()
+                            : bookRepository.findPage(page.get(page.size() - 1).getId(), INDEX_BATCH_SIZE).collectList())
+                    .flatMapIterable(page -> page)
+                    .doOnNext(bookSearchIndex::load)
+                    .count()
+                    .block();
+            log.info("Built search index with {} books", indexed);
+        } finally {
+            bookSearchIndex.endLoad();
+        }
+    }
+
     @Transactional
     public Mono<Book> createBook(Book book) {
-        return bookRepository.save(book)
+        return resolveReferences(book)
+                .flatMap(bookRepository::save)
+                .flatMap(savedBook -> afterCommit(() -> onBookSaved(BookChangeType.CREATED, savedBook)).thenReturn(savedBook))
                 .doOnSuccess(savedBook -> log.info("Created book with id: {}", savedBook.getId()))
                 .doOnError(e -> log.error("Error creating book", e));
     }
 
     @Transactional
     public Mono<Book> updateBook(Book book) {
-        return bookRepository.findById(book.getId())
+        return resolveReferences(book)
+                .flatMap(bookRepository::updateNonNullFields)
                 .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + book.getId())))
-                .flatMap(existingBook -> {
-                    if (book.getTitle() != null) existingBook.setTitle(book.getTitle());
-                    if (book.getAuthor() != null) existingBook.setAuthor(book.getAuthor());
-                    if (book.getIsbn() != null) existingBook.setIsbn(book.getIsbn());
-                    if (book.getPublishYear() != null) existingBook.setPublishYear(book.getPublishYear());
-                    if (book.getGenre() != null) existingBook.setGenre(book.getGenre());
-                    if (book.getAvailable() != null) existingBook.setAvailable(book.getAvailable());
-
-                    return bookRepository.save(existingBook);
-                })
+                .flatMap(updatedBook -> afterCommit(() -> onBookSaved(BookChangeType.UPDATED, updatedBook))
+                        .thenReturn(updatedBook))
                 .doOnSuccess(updatedBook -> log.info("Updated book with id: {}", updatedBook.getId()))
                 .doOnError(e -> log.error("Error updating book with id: {}", book.getId(), e));
     }
 
     @Transactional
     public Mono<Boolean> deleteBook(Long id) {
-        return bookRepository.findById(id)
+        // Still a single DELETE, but it hands back the old row so subscribers filtering by genre or author see it
+        return bookRepository.deleteAllByIdReturning(List.of(id))
+                .next()
                 .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + id)))
-                .flatMap(book -> bookRepository.delete(book).thenReturn(true))
+                .flatMap(deletedBook -> afterCommit(() -> onBookDeleted(deletedBook)).thenReturn(true))
                 .doOnSuccess(result -> log.info("Deleted book with id: {}", id))
                 .doOnError(e -> log.error("Error deleting book with id: {}", id, e));
     }
-}
 
+    /**
+     * Create many books in one transaction using batched inserts. Invalid items are reported in the
+     * result and skipped; the valid ones are written together.
+     */
+    @Transactional
+    public Mono<BulkBookResult> createBooks(List<Book> books) {
+        return Mono.defer(() -> {
+                    BookResult[] results = new BookResult[books.size()];
+                    List<Integer> candidates = new ArrayList<>();
+                    Set<Long> isbns = new LinkedHashSet<>();
+                    for (int i = 0; i < books.size(); i++) {
+                        String error = bookValidator.validateNew(books.get(i));
+                        if (error == null && !isbns.add(books.get(i).getIsbn())) {
+                            error = "Duplicate ISBN in request: " + books.get(i).getIsbn();
+                        }
+                        if (error != null) {
+                            results[i] = BookResult.failed(i, null, error);
+                        } else {
+                            candidates.add(i);
+                        }
+                    }
+
+                    List<Book> valid = new ArrayList<>();
+                    List<Integer> positions = new ArrayList<>();
+                    return findIsbnOwners(isbns)
+                            .flatMap(owners -> {
+                                for (Integer i : candidates) {
+                                    Book book = books.get(i);
+                                    if (owners.containsKey(book.getIsbn())) {
+                                        results[i] = BookResult.failed(i, null, "Book already exists with ISBN: " + book.getIsbn());
+                                    } else {
+                                        valid.add(book);
+                                        positions.add(i);
+                                    }
+                                }
+                                return resolveReferences(valid);
+                            })
+                            .flatMapMany(resolved -> Flux.fromIterable(resolved).buffer(BULK_BATCH_SIZE))
+                            .concatMap(bookRepository::insertAll)
+                            .collectList()
+                            .flatMap(saved -> {
+                                for (int i = 0; i < saved.size(); i++) {
+                                    results[positions.get(i)] = BookResult.saved(positions.get(i), saved.get(i));
+                                }
+                                return afterCommit(() -> saved.forEach(book -> onBookSaved(BookChangeType.CREATED, book)))
+                                        .thenReturn(BulkBookResult.of(Arrays.asList(results)));
+                            });
+                })
+                .doOnSuccess(result -> log.info("Created {} books, rejected {}", result.succeeded(), result.failed()))
+                .doOnError(e -> log.error("Error creating books in bulk", e));
+    }
+
+    /**
+     * Apply many partial updates in one transaction using a batched {@code UPDATE}. Invalid items, including
+     * ones that would give a book an ISBN another book already has, are reported in the result and skipped.
+     */
+    @Transactional
+    public Mono<BulkBookResult> updateBooks(List<Book> books) {
+        return Mono.defer(() -> {
+                    BookResult[] results = new BookResult[books.size()];
+                    List<Integer> candidates = new ArrayList<>();
+                    Set<Long> isbns = new LinkedHashSet<>();
+                    for (int i = 0; i < books.size(); i++) {
+                        Book book = books.get(i);
+                        String error = bookValidator.validateUpdate(book);
+                        if (error == null && book.getIsbn() != null && !isbns.add(book.getIsbn())) {
+                            error = "Duplicate ISBN in request: " + book.getIsbn();
+                        }
+                        if (error != null) {
+                            results[i] = BookResult.failed(i, book.getId(), error);
+                        } else {
+                            candidates.add(i);
+                        }
+                    }
+
+                    List<Book> valid = new ArrayList<>();
+                    List<Integer> positions = new ArrayList<>();
+                    return findIsbnOwners(isbns)
+                            .flatMap(owners -> {
+                                for (Integer i : candidates) {
+                                    Book book = books.get(i);
+                                    Long owner = book.getIsbn() != null ? owners.get(book.getIsbn()) : null;
+                                    if (owner != null && !owner.equals(book.getId())) {
+                                        results[i] = BookResult.failed(i, book.getId(), "Book already exists with ISBN: " + book.getIsbn());
+                                    } else {
+                                        valid.add(book);
+                                        positions.add(i);
+                                    }
+                                }
+                                return resolveReferences(valid);
+                            })
+                            .flatMapMany(resolved -> Flux.fromIterable(resolved).buffer(BULK_BATCH_SIZE))
+                            .concatMap(bookRepository::updateAll)
+                            .collectList()
+                            .flatMap(rowCounts -> {
+                                List<Long> updatedIds = new ArrayList<>();
+                                for (int i = 0; i < rowCounts.size(); i++) {
+                                    if (rowCounts.get(i) > 0) {
+                                        updatedIds.add(valid.get(i).getId());
+                                    }
+                                }
+                                // Read back in batches too: H2 checks each row against the whole IN list
+                                return Flux.fromIterable(updatedIds)
+                                        .buffer(BULK_BATCH_SIZE)
+                                        .concatMap(bookRepository::findAllById)
+                                        .collectMap(Book::getId);
+                            })
+                            .flatMap(updated -> {
+                                for (int i = 0; i < valid.size(); i++) {
+                                    Long id = valid.get(i).getId();
+                                    Book book = updated.get(id);
+                                    results[positions.get(i)] = book != null
+                                            ? BookResult.saved(positions.get(i), book)
+                                            : BookResult.failed(positions.get(i), id, "Book not found with id: " + id);
+                                }
+                                return afterCommit(() -> updated.values()
+                                                .forEach(book -> onBookSaved(BookChangeType.UPDATED, book)))
+                                        .thenReturn(BulkBookResult.of(Arrays.asList(results)));
+                            });
+                })
+                .doOnSuccess(result -> log.info("Updated {} books, rejected {}", result.succeeded(), result.failed()))
+                .doOnError(e -> log.error("Error updating books in bulk", e));
+    }
+
+    /**
+     * Delete many books in one transaction, reporting the ids that did not exist.
+     */
+    @Transactional
+    public Mono<BulkBookResult> deleteBooks(List<Long> ids) {
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(BULK_BATCH_SIZE)
+                .concatMap(bookRepository::deleteAllByIdReturning)
+                .collectMap(Book::getId)
+                .flatMap(deleted -> {
+                    List<BookResult> results = new ArrayList<>(ids.size());
+                    for (int i = 0; i < ids.size(); i++) {
+                        Long id = ids.get(i);
+                        results.add(deleted.containsKey(id)
+                                ? BookResult.deleted(i, id)
+                                : BookResult.failed(i, id, "Book not found with id: " + id));
+                    }
+                    return afterCommit(() -> deleted.values().forEach(this::onBookDeleted))
+                            .thenReturn(BulkBookResult.of(results));
+                })
+                .doOnSuccess(result -> log.info("Deleted {} books, rejected {}", result.succeeded(), result.failed()))
+                .doOnError(e -> log.error("Error deleting books in bulk", e));
+    }
+
+    /**
+     * Committed changes to books matching the optional genre and author filters.
+     */
+    public Flux<BookChangeEvent> getBookChanges(String genre, String author) {
+        return bookChangePublisher.subscribe(genre, author)
+                .doOnSubscribe(subscription -> log.info("Subscribed to book changes, genre: {}, author: {}", genre, author))
+                .doOnCancel(() -> log.info("Unsubscribed from book changes, genre: {}, author: {}", genre, author));
+    }
+
+    private void onBookSaved(BookChangeType type, Book book) {
+        bookCache.invalidate(book.getId());
+        bookSearchIndex.index(book);
+        notifyChange(BookChangeEvent.of(type, book));
+    }
+
+    private void onBookDeleted(Book book) {
+        bookCache.invalidate(book.getId());
+        bookSearchIndex.remove(book.getId());
+        notifyChange(BookChangeEvent.of(BookChangeType.DELETED, book));
+    }
+
+    private void notifyChange(BookChangeEvent event) {
+        for (BookChangeListener listener : bookChangeListeners) {
+            listener.onBookChanged(event);
+        }
+        bookChangePublisher.publish(event);
+    }
+
+    private Mono<Map<Long, Long>> findIsbnOwners(Set<Long> isbns) {
+        if (isbns.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(isbns)
+                .buffer(BULK_BATCH_SIZE)
+                .concatMap(bookRepository::findByIsbnIn)
+                .collectMap(Book::getIsbn, Book::getId);
+    }
+
+    /**
+     * Resolve author and genre references for many books with one {@code IN (...)} lookup per table,
+     * creating only the names that don't exist yet.
+     */
+    private Mono<List<Book>> resolveReferences(List<Book> books) {
+        Set<String> authorNames = referencedNames(books, Book::getAuthor);
+        Set<String> genreNames = referencedNames(books, Book::getGenre);
+        return resolveAuthorIds(authorNames)
+                .flatMap(authorIds -> resolveGenreIds(genreNames).map(genreIds -> {
+                    for (Book book : books) {
+                        if (book.getAuthor() != null) book.setAuthorId(authorIds.get(book.getAuthor()));
+                        if (book.getGenre() != null) book.setGenreId(genreIds.get(book.getGenre()));
+                    }
+                    return books;
+                }));
+    }
+
+    private Mono<Map<String, Long>> resolveAuthorIds(Set<String> names) {
+        if (names.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return authorRepository.findByNameIn(names)
+                .collectMap(Author::getName, Author::getId)
+                .flatMap(found -> Flux.fromIterable(names)
+                        .filter(name -> !found.containsKey(name))
+                        .concatMap(name -> resolveAuthorId(name).map(id -> Map.entry(name, id)))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new HashMap<>(found)));
+    }
+
+    private Mono<Map<String, Long>> resolveGenreIds(Set<String> names) {
+        if (names.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return genreRepository.findByNameIn(names)
+                .collectMap(Genre::getName, Genre::getId)
+                .flatMap(found -> Flux.fromIterable(names)
+                        .filter(name -> !found.containsKey(name))
+                        .concatMap(name -> resolveGenreId(name).map(id -> Map.entry(name, id)))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new HashMap<>(found)));
+    }
+
+    /**
+     * Point the book at the normalized author and genre rows for its current names, creating them if needed.
+     */
+    private Mono<Book> resolveReferences(Book book) {
+        return resolveAuthorId(book.getAuthor())
+                .doOnNext(book::setAuthorId)
+                .then(resolveGenreId(book.getGenre()).doOnNext(book::setGenreId))
+                .thenReturn(book);
+    }
+
+    private Mono<Long> resolveAuthorId(String name) {
+        if (name == null) {
+            return Mono.empty();
+        }
+        return authorRepository.findByName(name)
+                .switchIfEmpty(Mono.defer(() -> authorRepository.save(Author.builder().name(name).build())))
+                // Another writer may have inserted the same name since we looked
+                .onErrorResume(DataIntegrityViolationException.class, e -> authorRepository.findByName(name))
+                .map(Author::getId);
+    }
+
+    private Mono<Long> resolveGenreId(String name) {
+        if (name == null) {
+            return Mono.empty();
+        }
+        return genreRepository.findByName(name)
+                .switchIfEmpty(Mono.defer(() -> genreRepository.save(Genre.builder().name(name).build())))
+                .onErrorResume(DataIntegrityViolationException.class, e -> genreRepository.findByName(name))
+                .map(Genre::getId);
+    }
+
+    private static Set<String> referencedNames(List<Book> books, Function<Book, String> name) {
+        return books.stream().map(name).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static Set<Long> referencedIds(List<Book> books, Function<Book, Long> reference) {
+        return books.stream().map(reference).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Book, T> byReference(List<Book> books, Function<Book, Long> reference, Map<Long, T> byId) {
+        Map<Book, T> result = new HashMap<>();
+        for (Book book : books) {
+            T value = byId.get(reference.apply(book));
+            if (value != null) {
+                result.put(book, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run an action once the surrounding transaction has committed, or right away when there is none,
+     * so that readers never observe a cache entry that was refreshed before the write became visible.
+     */
+    private Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(synchronizationManager -> {
+                    if (!synchronizationManager.isSynchronizationActive()) {
+                        return Mono.<Void>fromRunnable(action);
+                    }
+                    synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(action);
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action));
+    }
+
+    private static List<Book> ranked(List<Long> ids, Map<Long, Book> byId) {
+        // A book can be deleted between the index lookup and the fetch, so skip ids that came back empty
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int pageSize(Integer first) {
+        if (first == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (first < 1) {
+            throw new InvalidPageRequestException("Argument 'first' must be positive");
+        }
+        return Math.min(first, MAX_PAGE_SIZE);
+    }
+}
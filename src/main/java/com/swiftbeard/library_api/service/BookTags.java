@@ -0,0 +1,54 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Names for what a read depends on, so whatever holds on to read results can drop the ones a committed
+ * book change affects. Authors and genres are compared ignoring case, as their lookups do.
+ */
+public final class BookTags {
+
+    /**
+     * Catalog-wide listings, which every change affects
+     */
+    public static final String CATALOG = "books";
+
+    private BookTags() {
+    }
+
+    public static String book(Object id) {
+        return "book:" + id;
+    }
+
+    public static String isbn(Object isbn) {
+        return "isbn:" + isbn;
+    }
+
+    public static String genre(String genre) {
+        return "genre:" + genre.toUpperCase(Locale.ROOT);
+    }
+
+    public static String author(String author) {
+        return "author:" + author.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the catalog, the book's id, and the ISBN, genre and author of the book as it is after the
+     * change, or as it was before a deletion
+     */
+    public static List<String> of(BookChangeEvent event) {
+        Book book = event.book();
+        List<String> tags = new ArrayList<>(List.of(CATALOG, book(event.bookId())));
+        if (book != null) {
+            if (book.getIsbn() != null) tags.add(isbn(book.getIsbn()));
+            if (book.getGenre() != null) tags.add(genre(book.getGenre()));
+            if (book.getAuthor() != null) tags.add(author(book.getAuthor()));
+        }
+        return tags;
+    }
+}
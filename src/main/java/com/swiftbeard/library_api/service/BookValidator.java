@@ -0,0 +1,60 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.Isbn;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a book against the constraints of the books table before it is written, so that one bad item
+ * of a bulk write is reported on its own instead of failing the statement for the whole batch.
+ */
+@Component
+public class BookValidator {
+
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_AUTHOR_LENGTH = 255;
+    private static final int MAX_GENRE_LENGTH = 100;
+
+    /**
+     * @return what is wrong with a book to be created, or null if it is valid
+     */
+    public String validateNew(Book book) {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(book.getTitle())) errors.add("Title is required");
+        if (isBlank(book.getAuthor())) errors.add("Author is required");
+        if (book.getIsbn() == null) errors.add("ISBN is required");
+        validateValues(book, errors);
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+
+    /**
+     * @return what is wrong with a partial update, or null if it is valid
+     */
+    public String validateUpdate(Book book) {
+        List<String> errors = new ArrayList<>();
+        if (book.getId() == null) errors.add("Id is required");
+        if (book.getTitle() != null && book.getTitle().isBlank()) errors.add("Title is required");
+        if (book.getAuthor() != null && book.getAuthor().isBlank()) errors.add("Author is required");
+        validateValues(book, errors);
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+
+    private static void validateValues(Book book, List<String> errors) {
+        if (tooLong(book.getTitle(), MAX_TITLE_LENGTH)) errors.add("Title must be at most " + MAX_TITLE_LENGTH + " characters");
+        if (tooLong(book.getAuthor(), MAX_AUTHOR_LENGTH)) errors.add("Author must be at most " + MAX_AUTHOR_LENGTH + " characters");
+        if (book.getIsbn() != null && !Isbn.isValid(book.getIsbn())) errors.add("ISBN is invalid");
+        if (tooLong(book.getGenre(), MAX_GENRE_LENGTH)) errors.add("Genre must be at most " + MAX_GENRE_LENGTH + " characters");
+        if (book.getPublishYear() != null && book.getPublishYear() <= 0) errors.add("Publish year must be positive");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value, int maxLength) {
+        return value != null && value.length() > maxLength;
+    }
+}
@@ -0,0 +1,94 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.ReadWriteRoutingConnectionFactory;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for reads: callers asking for the same key while a read is running share its result
+ * instead of running the same query again, so a burst of identical reads costs one query per key.
+ * <p>
+ * The read runs detached from its callers, under the Reactor context of the caller that started it, and a
+ * caller cancelling does not cancel it for the others. Reads inside a transaction are never shared, since
+ * they must see the transaction's own writes, and neither are reads of a client that is inside its
+ * read-your-writes window, since a shared read may come from a replica that is missing the client's write.
+ * <p>
+ * Each read carries the {@link BookTags} it depends on. A committed change stops the reads with any of its
+ * tags from being handed out, so callers arriving after it get a read that started after it.
+ */
+@Component
+public class InFlightReads implements BookChangeListener {
+
+    private record Flight(CompletableFuture<?> result, Set<String> tags) {
+    }
+
+    private final Map<Object, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+
+    /**
+     * @param key  equal for reads that return the same rows
+     * @param tags what the rows depend on
+     * @param read the read to run if none with this key is running
+     */
+    public <T> Mono<T> share(Object key, Set<String> tags, Supplier<Mono<T>> read) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(synchronizationManager -> true)
+                .onErrorResume(NoTransactionException.class, e -> Mono.just(false))
+                .flatMap(inTransaction -> inTransaction ? Mono.defer(read) : join(key, tags, read));
+    }
+
+    /**
+     * Callers already waiting on an affected read still get its result.
+     */
+    @Override
+    public void onBookChanged(BookChangeEvent event) {
+        List<String> tags = BookTags.of(event);
+        inFlight.values().removeIf(flight -> flight.tags().stream().anyMatch(tags::contains));
+    }
+
+    /**
+     * Callers that were given the result of a read another caller had started, since startup
+     */
+    public long sharedReads() {
+        return shared.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> join(Object key, Set<String> tags, Supplier<Mono<T>> read) {
+        return Mono.deferContextual(context -> {
+            if (readsOwnWrites(context)) {
+                return Mono.defer(read);
+            }
+            CompletableFuture<T> created = new CompletableFuture<>();
+            Flight flight = new Flight(created, tags);
+            Flight running = inFlight.putIfAbsent(key, flight);
+            if (running != null) {
+                shared.incrementAndGet();
+                return Mono.fromFuture((CompletableFuture<T>) running.result(), true);
+            }
+            created.whenComplete((value, error) -> inFlight.remove(key, flight));
+            Mono.defer(read)
+                    .contextWrite(context)
+                    .subscribe(created::complete, created::completeExceptionally, () -> created.complete(null));
+            return Mono.fromFuture(created, true);
+        });
+    }
+
+    private static boolean readsOwnWrites(ContextView context) {
+        return context.<ReadWriteRoutingConnectionFactory.Session>getOrEmpty(ReadWriteRoutingConnectionFactory.Session.class)
+                .map(ReadWriteRoutingConnectionFactory.Session::pinned)
+                .orElse(false);
+    }
+}
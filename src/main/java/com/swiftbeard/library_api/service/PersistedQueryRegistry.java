@@ -0,0 +1,93 @@
+package com.swiftbeard.library_api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.exception.PersistedQueryException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Automatic persisted queries: a client sends the SHA-256 hash of its query in
+ * {@code extensions.persistedQuery.sha256Hash}. The first time, it also sends the query text, which is
+ * registered under that hash; afterwards the hash alone is enough.
+ */
+@Component
+public class PersistedQueryRegistry {
+
+    private static final int VERSION = 1;
+
+    private final Cache<String, String> queries;
+
+    public PersistedQueryRegistry(LibraryProperties properties, MeterRegistry meterRegistry) {
+        this.queries = Caffeine.newBuilder()
+                .maximumSize(properties.getGraphql().getPersistedQueryCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, queries, "graphql.persisted-queries");
+    }
+
+    /**
+     * Fill in the query text of a request that refers to a persisted query, registering it first if the
+     * request carries both. Requests without the extension are returned unchanged.
+     */
+    public Map<String, Object> resolve(Map<String, Object> body) {
+        String hash = persistedQueryHash(body);
+        if (hash == null) {
+            return body;
+        }
+
+        Object query = body.get("query");
+        if (query instanceof String text && StringUtils.hasText(text)) {
+            if (!sha256(text).equals(hash)) {
+                throw new PersistedQueryException(PersistedQueryException.HASH_MISMATCH, "provided sha does not match query");
+            }
+            queries.put(hash, text);
+            return body;
+        }
+
+        String registered = queries.getIfPresent(hash);
+        if (registered == null) {
+            throw new PersistedQueryException(PersistedQueryException.NOT_FOUND, "PersistedQueryNotFound");
+        }
+        Map<String, Object> resolved = new LinkedHashMap<>(body);
+        resolved.put("query", registered);
+        return resolved;
+    }
+
+    public long size() {
+        return queries.estimatedSize();
+    }
+
+    static String sha256(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String persistedQueryHash(Map<String, Object> body) {
+        if (!(body.get("extensions") instanceof Map<?, ?> extensions)
+                || !(extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery)) {
+            return null;
+        }
+        if (!(persistedQuery.get("version") instanceof Number version) || version.intValue() != VERSION) {
+            throw new PersistedQueryException(PersistedQueryException.UNSUPPORTED, "Unsupported persisted query version");
+        }
+        if (!(persistedQuery.get("sha256Hash") instanceof String hash) || !StringUtils.hasText(hash)) {
+            throw new PersistedQueryException(PersistedQueryException.NOT_FOUND, "PersistedQueryNotFound");
+        }
+        return hash.toLowerCase();
+    }
+}
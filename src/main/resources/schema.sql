@@ -1,21 +1,66 @@
--- Drop table if it exists
+-- Drop tables if they exist
 DROP TABLE IF EXISTS books;
+DROP TABLE IF EXISTS authors;
+DROP TABLE IF EXISTS genres;
+
+-- Create lookup tables
+CREATE TABLE authors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE genres (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
 
 -- Create books table
 CREATE TABLE books (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
     author VARCHAR(255) NOT NULL,
-    isbn VARCHAR(20) NOT NULL,
+    isbn BIGINT NOT NULL,
     publish_year INT,
     genre VARCHAR(100),
-    available BOOLEAN NOT NULL DEFAULT TRUE
+    available BOOLEAN NOT NULL DEFAULT TRUE,
+    author_id BIGINT REFERENCES authors (id),
+    genre_id BIGINT REFERENCES genres (id),
+    -- Upper-cased copies kept by the database, so case-insensitive lookups can use an index
+    author_key VARCHAR(255) GENERATED ALWAYS AS (UPPER(author)),
+    genre_key VARCHAR(100) GENERATED ALWAYS AS (UPPER(genre))
 );
 
+-- ISBNs are stored as the ISBN-13 number, so lookups compare a single 8-byte key
+CREATE UNIQUE INDEX uk_books_isbn ON books (isbn);
+CREATE INDEX idx_books_genre_id ON books (genre_id);
+-- Lookup indexes end with id, so keyset pages (... AND id > ? ORDER BY id) are read in index order
+CREATE INDEX idx_books_author_id ON books (author_id, id);
+CREATE INDEX idx_books_author_key ON books (author_key, id);
+CREATE INDEX idx_books_genre_key ON books (genre_key, id);
+CREATE INDEX idx_books_available ON books (available, id);
+CREATE INDEX idx_books_publish_year ON books (publish_year, id);
+
 -- Add some sample data
-INSERT INTO books (title, author, isbn, publish_year, genre, available)
+INSERT INTO authors (name)
+VALUES
+    ('J.R.R. Tolkien'),
+    ('George Orwell'),
+    ('Harper Lee'),
+    ('F. Scott Fitzgerald');
+
+INSERT INTO genres (name)
+VALUES
+    ('Fantasy'),
+    ('Dystopian'),
+    ('Fiction');
+
+INSERT INTO books (title, author, isbn, publish_year, genre, available, author_id, genre_id)
 VALUES
-    ('The Hobbit', 'J.R.R. Tolkien', '978-0547928227', 1937, 'Fantasy', true),
-    ('1984', 'George Orwell', '978-0451524935', 1949, 'Dystopian', true),
-    ('To Kill a Mockingbird', 'Harper Lee', '978-0060935467', 1960, 'Fiction', true),
-    ('The Great Gatsby', 'F. Scott Fitzgerald', '978-0743273565', 1925, 'Fiction', true);
\ No newline at end of file
+    ('The Hobbit', 'J.R.R. Tolkien', 9780547928227, 1937, 'Fantasy', true,
+        (SELECT id FROM authors WHERE name = 'J.R.R. Tolkien'), (SELECT id FROM genres WHERE name = 'Fantasy')),
+    ('1984', 'George Orwell', 9780451524935, 1949, 'Dystopian', true,
+        (SELECT id FROM authors WHERE name = 'George Orwell'), (SELECT id FROM genres WHERE name = 'Dystopian')),
+    ('To Kill a Mockingbird', 'Harper Lee', 9780060935467, 1960, 'Fiction', true,
+        (SELECT id FROM authors WHERE name = 'Harper Lee'), (SELECT id FROM genres WHERE name = 'Fiction')),
+    ('The Great Gatsby', 'F. Scott Fitzgerald', 9780743273565, 1925, 'Fiction', true,
+        (SELECT id FROM authors WHERE name = 'F. Scott Fitzgerald'), (SELECT id FROM genres WHERE name = 'Fiction'));
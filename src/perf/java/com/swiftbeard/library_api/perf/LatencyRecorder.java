@@ -0,0 +1,82 @@
+package com.swiftbeard.library_api.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-operation latency histograms in microseconds, plus error counts.
+ */
+class LatencyRecorder {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Histogram total = new ConcurrentHistogram(3);
+    private final Map<String, Histogram> byOperation = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    void record(String operation, long latencyNanos, boolean succeeded) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        total.recordValue(micros);
+        byOperation.computeIfAbsent(operation, key -> new ConcurrentHistogram(3)).recordValue(micros);
+        if (!succeeded) {
+            errors.computeIfAbsent(operation, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    void reset() {
+        total.reset();
+        byOperation.clear();
+        errors.clear();
+    }
+
+    void report(PrintStream out, Duration elapsed) {
+        out.printf("%nThroughput: %.1f requests/s over %ds, %d errors%n%n",
+                total.getTotalCount() / (elapsed.toMillis() / 1000.0), elapsed.toSeconds(), errorCount());
+        out.printf("%-16s %10s %8s %10s %10s %10s %10s%n", "operation", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        new TreeMap<>(byOperation).forEach((operation, histogram) -> row(out, operation, histogram,
+                errors.getOrDefault(operation, new AtomicLong()).get()));
+        row(out, "all", total, errorCount());
+        out.printf("%nLatency distribution for all operations (ms):%n");
+        total.outputPercentileDistribution(out, MICROS_PER_MILLI);
+    }
+
+    /**
+     * Write one .hgrm file per operation, readable by the HdrHistogram plotter
+     */
+    void writeHistograms(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        write(dir.resolve("all.hgrm"), total);
+        for (Map.Entry<String, Histogram> entry : byOperation.entrySet()) {
+            write(dir.resolve(entry.getKey() + ".hgrm"), entry.getValue());
+        }
+    }
+
+    private long errorCount() {
+        return errors.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    private static void row(PrintStream out, String operation, Histogram histogram, long errors) {
+        out.printf("%-16s %10d %8d %10.2f %10.2f %10.2f %10.2f%n", operation, histogram.getTotalCount(), errors,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.swiftbeard.library_api.perf;
+
+import com.swiftbeard.library_api.LibraryApiApplication;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookResult;
+import com.swiftbeard.library_api.model.BulkBookResult;
+import com.swiftbeard.library_api.model.Isbn;
+import com.swiftbeard.library_api.service.BookService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application on a random port against its in-memory H2 database, seeds it, and drives a mixed
+ * GraphQL workload at a fixed request rate.
+ * <p>
+ * Requests are issued on a fixed schedule and latency is measured from when a request was due rather than
+ * when it was sent, so a saturated server shows up as queueing delay instead of a lower request rate.
+ * At most {@code clients} requests are in flight at once.
+ */
+public final class LoadTest {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE = new ParameterizedTypeReference<>() {
+    };
+    private static final int SEED_BATCH_SIZE = 500;
+    private static final int BOOKS_PER_AUTHOR = 10;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.data.r2dbc=WARN",
+                        "logging.level.io.r2dbc=WARN")
+                .run(args)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            int authors = Math.max(1, settings.books() / BOOKS_PER_AUTHOR);
+
+            System.out.printf("Seeding %d books...%n", settings.books());
+            List<Long> ids = seed(context.getBean(BookService.class), settings.books(), authors);
+
+            ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                    .maxConnections(settings.clients())
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port + "/graphql")
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .build();
+            Workload workload = new Workload(ids, authors);
+            LatencyRecorder recorder = new LatencyRecorder();
+
+            System.out.printf("Warming up for %ds at %d requests/s with %d clients...%n",
+                    settings.warmup().toSeconds(), settings.rate(), settings.clients());
+            drive(client, workload, settings, settings.warmup(), recorder);
+            recorder.reset();
+
+            System.out.printf("Measuring for %ds...%n", settings.duration().toSeconds());
+            long start = System.nanoTime();
+            drive(client, workload, settings, settings.duration(), recorder);
+            recorder.report(System.out, Duration.ofNanos(System.nanoTime() - start));
+            recorder.writeHistograms(settings.reportDir());
+            System.out.printf("%nHistograms written to %s%n", settings.reportDir().toAbsolutePath());
+
+            connections.dispose();
+        }
+    }
+
+    private static List<Long> seed(BookService bookService, int count, int authors) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(Book.builder()
+                    .title(Workload.title(i))
+                    .author(Workload.author(i % authors))
+                    .isbn(Isbn.complete(978_000_000_000L + i))
+                    .publishYear(1900 + i % 125)
+                    .genre(Workload.GENRES.get(i % Workload.GENRES.size()))
+                    .build());
+        }
+        return Flux.fromIterable(books)
+                .buffer(SEED_BATCH_SIZE)
+                .concatMap(bookService::createBooks)
+                .flatMapIterable(BulkBookResult::results)
+                .map(BookResult::id)
+                .collectList()
+                .block();
+    }
+
+    private static void drive(WebClient client, Workload workload, LoadTestSettings settings, Duration duration,
+                              LatencyRecorder recorder) {
+        long periodNanos = 1_000_000_000L / settings.rate();
+        long requests = duration.toNanos() / periodNanos;
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(periodNanos))
+                .take(requests)
+                .onBackpressureBuffer()
+                .flatMap(tick -> {
+                    long due = start + (tick + 1) * periodNanos;
+                    Workload.Operation operation = workload.next();
+                    return client.post()
+                            .bodyValue(operation.request())
+                            .retrieve()
+                            .bodyToMono(RESPONSE)
+                            .map(body -> !body.containsKey("errors"))
+                            .onErrorReturn(false)
+                            .doOnNext(succeeded -> recorder.record(operation.name(), System.nanoTime() - due, succeeded));
+                }, settings.clients())
+                .then()
+                .block();
+    }
+}
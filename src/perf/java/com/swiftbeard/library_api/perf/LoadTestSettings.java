@@ -0,0 +1,26 @@
+package com.swiftbeard.library_api.perf;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test settings, read from {@code loadTest.*} system properties.
+ *
+ * @param books    books seeded before the run
+ * @param clients  maximum requests in flight at once
+ * @param rate     target request rate per second
+ * @param warmup   run time discarded before measuring
+ * @param duration measured run time
+ */
+record LoadTestSettings(int books, int clients, int rate, Duration warmup, Duration duration, Path reportDir) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadTest.books", 10_000),
+                Integer.getInteger("loadTest.clients", 64),
+                Integer.getInteger("loadTest.rate", 500),
+                Duration.ofSeconds(Long.getLong("loadTest.warmup", 10)),
+                Duration.ofSeconds(Long.getLong("loadTest.duration", 60)),
+                Path.of(System.getProperty("loadTest.reportDir", "build/reports/load-test")));
+    }
+}
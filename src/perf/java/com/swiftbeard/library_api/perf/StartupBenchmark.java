@@ -0,0 +1,182 @@
+package com.swiftbeard.library_api.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application in a fresh JVM several times per mode and measures the time from launching the
+ * process to the first successful GraphQL query, and the resident set size at that moment.
+ * <p>
+ * The modes are the plain JVM and an AppCDS archive, plus Spring AOT with and without the archive when
+ * application.jar was built with {@code -Paot}. Each archive comes from a training run that is stopped
+ * after serving its first query, so it holds the classes loaded while handling a request too.
+ */
+public final class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.swiftbeard.library_api.LibraryApiApplication";
+    private static final String QUERY = "{\"query\":\"{ books(first: 1) { edges { node { id } } } }\"}";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private record Mode(String name, boolean aot, boolean cds) {
+    }
+
+    private record Sample(long firstQueryMillis, long rssKilobytes) {
+    }
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StartupSettings settings = StartupSettings.fromSystemProperties();
+        String classpath = classpath(settings.appDir());
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        Files.createDirectories(settings.reportDir());
+
+        List<Mode> modes = new ArrayList<>(List.of(new Mode("jvm", false, false), new Mode("cds", false, true)));
+        if (settings.aot()) {
+            modes.add(new Mode("aot", true, false));
+            modes.add(new Mode("aot+cds", true, true));
+        }
+
+        List<String> csv = new ArrayList<>(List.of("mode,run,firstQueryMillis,rssMegabytes"));
+        System.out.printf("%-8s %10s %10s %10s %12s%n", "mode", "median ms", "min ms", "max ms", "median RSS");
+        for (Mode mode : modes) {
+            Path archive = settings.appDir().resolve(mode.name().replace('+', '-') + ".jsa");
+            if (mode.cds()) {
+                Files.deleteIfExists(archive);
+                run(mode, List.of("-XX:ArchiveClassesAtExit=" + archive), classpath, http, settings, "train");
+                if (!Files.exists(archive)) {
+                    throw new IllegalStateException("Training run for " + mode.name() + " did not write " + archive);
+                }
+            }
+
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 1; i <= settings.runs(); i++) {
+                List<String> jvmArgs = mode.cds() ? List.of("-XX:SharedArchiveFile=" + archive) : List.of();
+                Sample sample = run(mode, jvmArgs, classpath, http, settings, Integer.toString(i));
+                samples.add(sample);
+                csv.add(String.format("%s,%d,%d,%.1f", mode.name(), i, sample.firstQueryMillis(),
+                        sample.rssKilobytes() / 1024.0));
+            }
+            report(mode, samples);
+        }
+
+        Path report = settings.reportDir().resolve("startup.csv");
+        Files.write(report, csv);
+        System.out.printf("%nPer-run results written to %s%n", report.toAbsolutePath());
+    }
+
+    private static Sample run(Mode mode, List<String> jvmArgs, String classpath, HttpClient http,
+                              StartupSettings settings, String label) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        if (mode.aot()) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of("-cp", classpath, MAIN_CLASS,
+                "--server.port=" + port,
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.data.r2dbc=WARN",
+                "--logging.level.io.r2dbc=WARN"));
+        File log = settings.reportDir().resolve(mode.name().replace('+', '-') + "-" + label + ".log").toFile();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            long firstQueryNanos = awaitFirstQuery(process, http, port, settings.timeout(), log) - start;
+            return new Sample(TimeUnit.NANOSECONDS.toMillis(firstQueryNanos), rssKilobytes(process.pid()));
+        } finally {
+            // SIGTERM, so the JVM exits normally and a training run writes its archive
+            process.destroy();
+            if (!process.waitFor(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which a query first succeeded
+     */
+    private static long awaitFirstQuery(Process process, HttpClient http, int port, Duration timeout, File log)
+            throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/graphql"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(QUERY))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue() + ", see " + log);
+            }
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && !response.body().contains("\"errors\"")) {
+                    return System.nanoTime();
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException("No successful query within " + timeout + ", see " + log);
+    }
+
+    private static long rssKilobytes(long pid) throws IOException, InterruptedException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String rss = new String(ps.getInputStream().readAllBytes()).trim();
+        ps.waitFor();
+        return Long.parseLong(rss);
+    }
+
+    /**
+     * An explicit, sorted list of jars rather than a wildcard, since an archive is only used with the exact
+     * classpath it was created with.
+     */
+    private static String classpath(Path appDir) throws IOException {
+        List<String> entries = new ArrayList<>();
+        entries.add(appDir.resolve("application.jar").toString());
+        try (Stream<Path> libs = Files.list(appDir.resolve("lib"))) {
+            libs.map(Path::toString).sorted().forEach(entries::add);
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(Mode mode, List<Sample> samples) {
+        List<Long> millis = samples.stream().map(Sample::firstQueryMillis).sorted().toList();
+        List<Long> rss = samples.stream().map(Sample::rssKilobytes).sorted().toList();
+        System.out.printf("%-8s %10d %10d %10d %9.1f MB%n", mode.name(), millis.get(millis.size() / 2),
+                millis.get(0), millis.get(millis.size() - 1), rss.get(rss.size() / 2) / 1024.0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.swiftbeard.library_api.perf;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Startup benchmark settings, read from {@code startup.*} system properties.
+ *
+ * @param appDir    directory holding application.jar and lib/, as assembled by the startupJar and startupLibs tasks
+ * @param runs      measured starts per mode
+ * @param aot       whether application.jar holds Spring AOT output, adding the aot modes
+ * @param timeout   longest wait for the first successful query
+ * @param reportDir where the per-run CSV is written
+ */
+record StartupSettings(Path appDir, int runs, boolean aot, Duration timeout, Path reportDir) {
+
+    static StartupSettings fromSystemProperties() {
+        return new StartupSettings(
+                Path.of(System.getProperty("startup.appDir", "build/startup")),
+                Integer.getInteger("startup.runs", 5),
+                Boolean.getBoolean("startup.aot"),
+                Duration.ofSeconds(Long.getLong("startup.timeout", 60)),
+                Path.of(System.getProperty("startup.reportDir", "build/reports/startup")));
+    }
+}
@@ -0,0 +1,115 @@
+package com.swiftbeard.library_api.perf;
+
+import com.swiftbeard.library_api.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A weighted mix of the queries and mutations in schema.graphqls, with arguments drawn from the seeded data.
+ */
+class Workload {
+
+    static final List<String> GENRES = List.of("Fantasy", "Science Fiction", "Mystery", "Romance", "History",
+            "Biography", "Poetry", "Horror", "Thriller", "Philosophy");
+
+    static final List<String> WORDS = List.of("shadow", "river", "empire", "garden", "winter", "machine",
+            "silent", "crown", "ocean", "forgotten", "glass", "iron", "letters", "midnight", "stone", "harbor");
+
+    private static final String BOOKS = """
+            query($first: Int, $after: String) {
+              books(first: $first, after: $after) { edges { node { id title author } } pageInfo { hasNextPage endCursor } }
+            }""";
+    private static final String BOOK_BY_ID = """
+            query($id: ID!) { bookById(id: $id) { id title author isbn publishYear genre available } }""";
+    private static final String BOOKS_BY_GENRE = """
+            query($genre: String!) { booksByGenre(genre: $genre, first: 20) { edges { node { id title author } } } }""";
+    private static final String BOOKS_BY_AUTHOR = """
+            query($author: String!) {
+              booksByAuthor(author: $author, first: 20) { edges { node { id title authorDetails { name } } } }
+            }""";
+    private static final String SEARCH_BOOKS = """
+            query($query: String!) { searchBooks(query: $query, first: 20) { edges { node { id title } } } }""";
+    private static final String CREATE_BOOK = """
+            mutation($book: BookInput!) { createBook(book: $book) { id } }""";
+    private static final String UPDATE_BOOK = """
+            mutation($book: BookUpdateInput!) { updateBook(book: $book) { id available } }""";
+
+    record Operation(String name, Map<String, Object> request) {
+    }
+
+    private final List<Long> ids;
+    private final int authors;
+    private final List<Supplier<Operation>> mix = new ArrayList<>();
+    // Created books take ISBNs from the 979 range so they never collide with the seeded 978 ones
+    private final AtomicLong nextIsbn = new AtomicLong(979_000_000_000L);
+
+    Workload(List<Long> ids, int authors) {
+        this.ids = ids;
+        this.authors = authors;
+        add(30, () -> operation("books", BOOKS, Map.of("first", 20)));
+        add(30, () -> operation("bookById", BOOK_BY_ID, Map.of("id", randomId())));
+        add(10, () -> operation("booksByGenre", BOOKS_BY_GENRE, Map.of("genre", randomGenre())));
+        add(10, () -> operation("booksByAuthor", BOOKS_BY_AUTHOR, Map.of("author", randomAuthor())));
+        add(10, () -> operation("searchBooks", SEARCH_BOOKS, Map.of("query", randomWord() + " " + randomWord())));
+        add(5, () -> operation("createBook", CREATE_BOOK, Map.of("book", randomBook())));
+        add(5, () -> operation("updateBook", UPDATE_BOOK,
+                Map.of("book", Map.of("id", randomId(), "available", ThreadLocalRandom.current().nextBoolean()))));
+    }
+
+    Operation next() {
+        return mix.get(ThreadLocalRandom.current().nextInt(mix.size())).get();
+    }
+
+    static String title(int i) {
+        return capitalize(WORDS.get(i % WORDS.size())) + " of the " + capitalize(WORDS.get((i / WORDS.size()) % WORDS.size()));
+    }
+
+    static String author(int i) {
+        return "Author " + i;
+    }
+
+    private void add(int weight, Supplier<Operation> operation) {
+        for (int i = 0; i < weight; i++) {
+            mix.add(operation);
+        }
+    }
+
+    private static Operation operation(String name, String query, Map<String, Object> variables) {
+        return new Operation(name, Map.of("query", query, "variables", variables));
+    }
+
+    private Map<String, Object> randomBook() {
+        int i = ThreadLocalRandom.current().nextInt(1_000_000);
+        return Map.of(
+                "title", title(i),
+                "author", randomAuthor(),
+                "isbn", Long.toString(Isbn.complete(nextIsbn.getAndIncrement())),
+                "publishYear", 1900 + i % 125,
+                "genre", randomGenre());
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private String randomAuthor() {
+        return author(ThreadLocalRandom.current().nextInt(authors));
+    }
+
+    private static String randomGenre() {
+        return GENRES.get(ThreadLocalRandom.current().nextInt(GENRES.size()));
+    }
+
+    private static String randomWord() {
+        return WORDS.get(ThreadLocalRandom.current().nextInt(WORDS.size()));
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,141 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.config.AdaptiveConcurrencyLimiter.Permit;
+import com.swiftbeard.library_api.config.AdaptiveConcurrencyLimiter.Priority;
+import com.swiftbeard.library_api.exception.OverloadedException;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void acquire_OverLimit_ShouldWaitForRelease() {
+        AdaptiveConcurrencyLimiter limiter = limiter(settings(2));
+        Permit first = acquire(limiter, Priority.QUERY).join();
+        acquire(limiter, Priority.QUERY).join();
+
+        CompletableFuture<Permit> third = acquire(limiter, Priority.QUERY);
+        assertFalse(third.isDone());
+        assertEquals(1, limiter.queued(Priority.QUERY));
+
+        first.success();
+        assertTrue(third.isDone());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void release_ShouldAdmitMutationsBeforeQueuedQueries() {
+        LibraryProperties.Admission settings = settings(1);
+        // A fast completion would otherwise raise the limit and admit the query alongside the mutation
+        settings.setMaxLimit(1);
+        AdaptiveConcurrencyLimiter limiter = limiter(settings);
+        Permit running = acquire(limiter, Priority.QUERY).join();
+
+        CompletableFuture<Permit> list = acquire(limiter, Priority.LIST);
+        CompletableFuture<Permit> query = acquire(limiter, Priority.QUERY);
+        CompletableFuture<Permit> mutation = acquire(limiter, Priority.MUTATION);
+        running.success();
+
+        assertTrue(mutation.isDone());
+        assertFalse(query.isDone());
+        assertFalse(list.isDone());
+
+        mutation.join().success();
+        assertTrue(query.isDone());
+        assertFalse(list.isDone());
+    }
+
+    @Test
+    void acquire_ShouldKeepListShareFreeForOtherOperations() {
+        LibraryProperties.Admission settings = settings(4);
+        settings.setListShare(0.5);
+        AdaptiveConcurrencyLimiter limiter = limiter(settings);
+
+        acquire(limiter, Priority.LIST).join();
+        acquire(limiter, Priority.LIST).join();
+        CompletableFuture<Permit> list = acquire(limiter, Priority.LIST);
+        CompletableFuture<Permit> query = acquire(limiter, Priority.QUERY);
+
+        assertFalse(list.isDone());
+        assertTrue(query.isDone());
+    }
+
+    @Test
+    void acquire_WithFullQueue_ShouldFailFast() {
+        LibraryProperties.Admission settings = settings(1);
+        settings.setQueueSize(1);
+        AdaptiveConcurrencyLimiter limiter = limiter(settings);
+        acquire(limiter, Priority.QUERY).join();
+        acquire(limiter, Priority.QUERY);
+
+        StepVerifier.create(limiter.acquire(Priority.QUERY))
+                .expectErrorMatches(e -> e instanceof OverloadedException overloaded
+                        && overloaded.getReason().equals(OverloadedException.QUEUE_FULL))
+                .verify();
+    }
+
+    @Test
+    void acquire_WaitingTooLong_ShouldFailAndLeaveQueue() {
+        LibraryProperties.Admission settings = settings(1);
+        settings.setQueueTimeout(Duration.ofMillis(50));
+        AdaptiveConcurrencyLimiter limiter = limiter(settings);
+        acquire(limiter, Priority.QUERY).join();
+
+        StepVerifier.create(limiter.acquire(Priority.QUERY))
+                .expectErrorMatches(e -> e instanceof OverloadedException overloaded
+                        && overloaded.getReason().equals(OverloadedException.TIMEOUT))
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, limiter.queued(Priority.QUERY));
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void release_ShouldLowerLimitOnSlowOperationsAndRaiseItOnFastOnes() {
+        AdaptiveConcurrencyLimiter limiter = limiter(settings(20));
+
+        Permit slow = acquire(limiter, Priority.QUERY).join();
+        Permit alsoSlow = acquire(limiter, Priority.QUERY).join();
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        slow.success();
+        alsoSlow.failure();
+        // Both slow outcomes arrived within one threshold, so the limit drops once
+        assertEquals(18, limiter.limit());
+
+        for (int i = 0; i < 200; i++) {
+            Permit[] permits = new Permit[10];
+            for (int j = 0; j < permits.length; j++) {
+                permits[j] = acquire(limiter, Priority.QUERY).join();
+            }
+            clock.addAndGet(Duration.ofMillis(10).toNanos());
+            for (Permit permit : permits) {
+                permit.success();
+            }
+        }
+        assertTrue(limiter.limit() > 18, "limit: " + limiter.limit());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(LibraryProperties.Admission settings) {
+        return new AdaptiveConcurrencyLimiter(settings, clock::get);
+    }
+
+    private static CompletableFuture<Permit> acquire(AdaptiveConcurrencyLimiter limiter, Priority priority) {
+        return limiter.acquire(priority).toFuture();
+    }
+
+    private static LibraryProperties.Admission settings(int limit) {
+        LibraryProperties.Admission settings = new LibraryProperties.Admission();
+        settings.setInitialLimit(limit);
+        settings.setMinLimit(1);
+        return settings;
+    }
+}
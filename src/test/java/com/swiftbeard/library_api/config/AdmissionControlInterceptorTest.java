@@ -0,0 +1,95 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLError;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlInterceptorTest {
+
+    private static final GraphQLSchema SCHEMA = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("""
+                    type Query { bookById(id: ID!): String books(first: Int): [String] }
+                    type Mutation { deleteBook(id: ID!): Boolean }
+                    type Subscription { bookChanged: String }"""),
+            RuntimeWiring.newRuntimeWiring().build());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void intercept_OverLimit_ShouldRejectWithRetryableError() {
+        AdmissionControlInterceptor interceptor = interceptor();
+        Disposable running = interceptor.intercept(request("{ bookById(id: 1) }"), request -> Mono.never()).subscribe();
+
+        WebGraphQlResponse response = interceptor.intercept(request("{ bookById(id: 2) }"), this::execute).block();
+
+        GraphQLError error = response.getExecutionResult().getErrors().get(0);
+        assertEquals("OVERLOADED", error.getExtensions().get("code"));
+        assertEquals(true, error.getExtensions().get("retryable"));
+        assertEquals("1", response.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.counter(AdmissionControlInterceptor.REJECTED_COUNTER,
+                "priority", "query", "reason", "queue-full").count());
+        running.dispose();
+    }
+
+    @Test
+    void intercept_ShouldReleaseSlotWhenOperationCompletes() {
+        AdmissionControlInterceptor interceptor = interceptor();
+
+        for (int i = 0; i < 3; i++) {
+            WebGraphQlResponse response = interceptor.intercept(request("mutation { deleteBook(id: 1) }"), this::execute)
+                    .block();
+            assertTrue(response.getErrors().isEmpty());
+        }
+        assertEquals(0, meterRegistry.get("graphql.admission.inflight").gauge().value());
+    }
+
+    @Test
+    void intercept_ShouldNotLimitSubscriptions() {
+        AdmissionControlInterceptor interceptor = interceptor();
+        Disposable running = interceptor.intercept(request("{ books(first: 10) }"), request -> Mono.never()).subscribe();
+
+        WebGraphQlResponse response = interceptor.intercept(request("subscription { bookChanged }"), this::execute)
+                .block();
+
+        assertTrue(response.getErrors().isEmpty());
+        running.dispose();
+    }
+
+    private AdmissionControlInterceptor interceptor() {
+        LibraryProperties.Admission settings = new LibraryProperties.Admission();
+        settings.setInitialLimit(1);
+        settings.setMinLimit(1);
+        settings.setQueueSize(0);
+        return new AdmissionControlInterceptor(settings, 100, () -> SCHEMA, meterRegistry);
+    }
+
+    private Mono<WebGraphQlResponse> execute(WebGraphQlRequest request) {
+        return Mono.just(new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(
+                ExecutionInput.newExecutionInput(request.getDocument()).build(),
+                ExecutionResultImpl.newExecutionResult().data(Map.of()).build())));
+    }
+
+    private static WebGraphQlRequest request(String query) {
+        return new WebGraphQlRequest(URI.create("/graphql"), new HttpHeaders(), null, Map.of(),
+                Map.of("query", query), "1", Locale.ENGLISH);
+    }
+}
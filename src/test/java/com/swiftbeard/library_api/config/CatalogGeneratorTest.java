@@ -0,0 +1,90 @@
+package com.swiftbeard.library_api.config;
+
+import com.swiftbeard.library_api.model.Isbn;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogGeneratorTest {
+
+    private static final int BOOKS = 5_000;
+    private static final int AUTHORS = 200;
+
+    @Test
+    void generate_ShouldInsertRequestedBooksWithValidIsbns() {
+        DatabaseClient client = database("catalogCount");
+
+        assertEquals(BOOKS, new CatalogGenerator(client, settings(42)).generate().block());
+
+        List<Long> isbns = client.sql("SELECT isbn FROM books WHERE isbn >= 9790000000000")
+                .map(row -> row.get("isbn", Long.class))
+                .all()
+                .collectList()
+                .block();
+        assertEquals(BOOKS, isbns.size());
+        assertTrue(isbns.stream().allMatch(Isbn::isValid));
+    }
+
+    @Test
+    void generate_WithSameSeed_ShouldProduceSameCatalog() {
+        DatabaseClient first = database("catalogFirst");
+        DatabaseClient second = database("catalogSecond");
+        DatabaseClient other = database("catalogOther");
+
+        new CatalogGenerator(first, settings(7)).generate().block();
+        new CatalogGenerator(second, settings(7)).generate().block();
+        new CatalogGenerator(other, settings(8)).generate().block();
+
+        assertEquals(rows(first), rows(second));
+        assertNotEquals(rows(first), rows(other));
+    }
+
+    @Test
+    void generate_ShouldSkewBooksTowardsFewAuthors() {
+        DatabaseClient client = database("catalogSkew");
+        new CatalogGenerator(client, settings(42)).generate().block();
+
+        List<Long> perAuthor = client.sql("SELECT COUNT(*) AS books FROM books GROUP BY author_id ORDER BY books DESC")
+                .map(row -> row.get("books", Long.class))
+                .all()
+                .collectList()
+                .block();
+        long topTenPercent = perAuthor.stream().limit(AUTHORS / 10).mapToLong(Long::longValue).sum();
+
+        // Uniformly spread, the top tenth of the authors would hold about a tenth of the books
+        assertTrue(topTenPercent > BOOKS / 2, "top authors hold " + topTenPercent + " books");
+    }
+
+    private static LibraryProperties.Scale settings(long seed) {
+        LibraryProperties.Scale settings = new LibraryProperties.Scale();
+        settings.setBooks(BOOKS);
+        settings.setAuthors(AUTHORS);
+        settings.setSeed(seed);
+        settings.setBatchSize(500);
+        return settings;
+    }
+
+    private static List<Map<String, Object>> rows(DatabaseClient client) {
+        return client.sql("SELECT title, author, isbn, publish_year, genre, available FROM books ORDER BY id")
+                .fetch()
+                .all()
+                .collectList()
+                .block();
+    }
+
+    private static DatabaseClient database(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + name + "?options=DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).populate(connectionFactory).block();
+        return DatabaseClient.create(connectionFactory);
+    }
+}
@@ -0,0 +1,67 @@
+package com.swiftbeard.library_api.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class DatabaseConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MeteredConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        R2dbcProperties properties = new R2dbcProperties();
+        properties.setUrl("r2dbc:h2:mem:///poolTest?options=DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.getPool().setInitialSize(3);
+        properties.getPool().setMaxSize(5);
+        properties.getPool().setMaxAcquireTime(Duration.ofSeconds(5));
+        properties.getPool().setValidationQuery("SELECT 1");
+
+        connectionFactory = new DatabaseConfig().connectionFactory(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.dispose();
+    }
+
+    @Test
+    void connectionFactory_ShouldWarmUpPoolToInitialSize() {
+        ConnectionPool pool = assertInstanceOf(ConnectionPool.class, connectionFactory.unwrap());
+
+        assertEquals(3, pool.getMetrics().orElseThrow().allocatedSize());
+        assertEquals(5, pool.getMetrics().orElseThrow().getMaxAllocatedSize());
+    }
+
+    @Test
+    void connectionFactory_ShouldTimeConnectionAcquisition() {
+        Mono<Integer> query = Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.createStatement("SELECT 1").execute())
+                        .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Integer.class)))),
+                Connection::close);
+
+        StepVerifier.create(query)
+                .expectNext(1)
+                .verifyComplete();
+
+        Timer acquired = meterRegistry.get("r2dbc.pool.acquire")
+                .tag("name", DatabaseConfig.POOL_NAME)
+                .tag("outcome", "success")
+                .timer();
+        assertEquals(1, acquired.count());
+    }
+}
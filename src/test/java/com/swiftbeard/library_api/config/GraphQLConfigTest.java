@@ -1,14 +1,17 @@
 package com.swiftbeard.library_api.config;
 
 import graphql.schema.GraphQLScalarType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
-@SpringBootTest(classes = GraphQLConfig.class)
+@SpringBootTest(classes = {GraphQLConfig.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(LibraryProperties.class)
 class GraphQLConfigTest {
 
     @Autowired
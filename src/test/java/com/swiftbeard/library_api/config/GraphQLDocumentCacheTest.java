@@ -0,0 +1,69 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLDocumentCacheTest {
+
+    private static final GraphQLSchema SCHEMA = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("type Query { title: String } type Mutation { rename(title: String): String }"),
+            RuntimeWiring.newRuntimeWiring()
+                    .type("Query", builder -> builder.dataFetcher("title", env -> "Dune"))
+                    .type("Mutation", builder -> builder.dataFetcher("rename", env -> env.getArgument("title")))
+                    .build());
+
+    @Test
+    void shouldParseAndValidateRepeatedQueriesOnce() {
+        GraphQLDocumentCache documentCache = new GraphQLDocumentCache(10);
+        GraphQL graphQL = GraphQL.newGraphQL(SCHEMA).preparsedDocumentProvider(documentCache).build();
+
+        for (int i = 0; i < 3; i++) {
+            ExecutionResult result = graphQL.execute("{ title }");
+            assertEquals(Map.of("title", "Dune"), result.getData());
+        }
+
+        assertEquals(1, documentCache.cache().estimatedSize());
+        assertEquals(1, documentCache.cache().stats().missCount());
+        assertEquals(2, documentCache.cache().stats().hitCount());
+    }
+
+    @Test
+    void shouldCacheValidationErrors() {
+        GraphQLDocumentCache documentCache = new GraphQLDocumentCache(10);
+        GraphQL graphQL = GraphQL.newGraphQL(SCHEMA).preparsedDocumentProvider(documentCache).build();
+
+        graphQL.execute("{ missing }");
+        ExecutionResult result = graphQL.execute("{ missing }");
+
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, documentCache.cache().stats().hitCount());
+    }
+
+    @Test
+    void readOnlyRequests_ShouldRejectMutations() {
+        GraphQL graphQL = GraphQL.newGraphQL(SCHEMA).instrumentation(new ReadOnlyOperationInstrumentation()).build();
+
+        ExecutionResult query = graphQL.execute(readOnly("{ title }"));
+        ExecutionResult mutation = graphQL.execute(readOnly("mutation { rename(title: \"Emma\") }"));
+
+        assertTrue(query.getErrors().isEmpty());
+        assertEquals("Only queries can be sent with GET", mutation.getErrors().get(0).getMessage());
+    }
+
+    private static ExecutionInput readOnly(String query) {
+        return ExecutionInput.newExecutionInput(query)
+                .graphQLContext(Map.of(ReadOnlyOperationInstrumentation.READ_ONLY, true))
+                .build();
+    }
+}
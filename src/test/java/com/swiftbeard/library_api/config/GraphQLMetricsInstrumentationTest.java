@@ -0,0 +1,65 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLMetricsInstrumentationTest {
+
+    private static final GraphQLSchema SCHEMA = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("type Query { books: [Book] } type Book { title: String }"),
+            RuntimeWiring.newRuntimeWiring()
+                    .type("Query", builder -> builder.dataFetcher("books",
+                            env -> CompletableFuture.supplyAsync(() -> List.of(Map.of("title", "Dune")))))
+                    .build());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldTimePhasesAndNonTrivialFetchersByOperation() {
+        ExecutionResult result = execute(0);
+
+        assertTrue(result.getErrors().isEmpty());
+        for (String phase : List.of("parse", "validate", "execute")) {
+            assertEquals(1, meterRegistry.get(GraphQLMetricsInstrumentation.PHASE_TIMER)
+                    .tag("operation", "Books").tag("phase", phase).timer().count());
+        }
+        assertEquals(1, meterRegistry.get(GraphQLMetricsInstrumentation.FIELD_TIMER)
+                .tag("operation", "Books").tag("field", "Query.books").tag("outcome", "success").timer().count());
+        assertNull(meterRegistry.find(GraphQLMetricsInstrumentation.FIELD_TIMER).tag("field", "Book.title").timer());
+        assertNull(result.getExtensions());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAddTracingToSampledResponses() {
+        ExecutionResult result = execute(1.0);
+
+        Map<String, Object> tracing = (Map<String, Object>) result.getExtensions().get("tracing");
+        List<Map<String, Object>> resolvers =
+                (List<Map<String, Object>>) ((Map<String, Object>) tracing.get("execution")).get("resolvers");
+        assertEquals(1, tracing.get("version"));
+        assertEquals(List.of("Query.books", "Book.title"),
+                resolvers.stream().map(resolver -> resolver.get("parentType") + "." + resolver.get("fieldName")).toList());
+    }
+
+    private ExecutionResult execute(double tracingSampleRate) {
+        GraphQL graphQL = GraphQL.newGraphQL(SCHEMA)
+                .instrumentation(new GraphQLMetricsInstrumentation(meterRegistry, tracingSampleRate))
+                .build();
+        return graphQL.execute("query Books { books { title } }");
+    }
+}
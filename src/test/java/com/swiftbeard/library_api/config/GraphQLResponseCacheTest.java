@@ -0,0 +1,188 @@
+package com.swiftbeard.library_api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import com.swiftbeard.library_api.service.BookTags;
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLResponseCacheTest {
+
+    private static final GraphQLResponseCache.CachedResponse RESPONSE =
+            new GraphQLResponseCache.CachedResponse("{\"data\":{}}".getBytes(), "\"etag\"");
+
+    @Test
+    void key_ShouldIgnoreFormattingAndVariableOrder() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+        Map<String, Object> firstVariables = new LinkedHashMap<>();
+        firstVariables.put("genre", "Fantasy");
+        firstVariables.put("first", 10);
+        Map<String, Object> secondVariables = new LinkedHashMap<>();
+        secondVariables.put("first", 10);
+        secondVariables.put("genre", "Fantasy");
+
+        String first = cache.key(body("query($genre: String!, $first: Int) { booksByGenre(genre: $genre, first: $first) { edges { cursor } } }",
+                firstVariables));
+        String second = cache.key(body("""
+                query ($genre: String!, $first: Int) {
+                  booksByGenre(genre: $genre, first: $first) {
+                    edges { cursor }
+                  }
+                }""", secondVariables));
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertNotEquals(first, cache.key(body("query($genre: String!, $first: Int) { booksByGenre(genre: $genre, first: $first) { edges { cursor } } }",
+                Map.of("genre", "Fantasy", "first", 20))));
+    }
+
+    @Test
+    void key_ShouldOnlyCoverQueries() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+
+        assertNull(cache.key(body("mutation { deleteBook(id: 1) }", Map.of())));
+        assertNull(cache.key(body("{ books(", Map.of())));
+        assertNull(cache.key(body("query A { books { edges { cursor } } } query B { bookById(id: 1) { id } }", Map.of())));
+
+        Map<String, Object> named = body("query A { books { edges { cursor } } } mutation B { deleteBook(id: 1) }", Map.of());
+        named.put("operationName", "A");
+        assertNotNull(cache.key(named));
+        named.put("operationName", "B");
+        assertNull(cache.key(named));
+    }
+
+    @Test
+    void onBookChanged_ShouldEvictTaggedEntriesOnly() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+        cache.put("byId", cache.version(), RESPONSE, Set.of(BookTags.book(1L)));
+        cache.put("byGenre", cache.version(), RESPONSE, Set.of(BookTags.genre("fantasy")));
+        cache.put("byAuthor", cache.version(), RESPONSE, Set.of(BookTags.author("J.R.R. Tolkien")));
+        cache.put("catalog", cache.version(), RESPONSE, Set.of(BookTags.CATALOG));
+        cache.put("other", cache.version(), RESPONSE, Set.of(BookTags.book(2L),
+                BookTags.genre("Dystopian"), BookTags.author("George Orwell")));
+
+        cache.onBookChanged(BookChangeEvent.of(BookChangeType.UPDATED, Book.builder()
+                .id(1L).isbn(9780261102385L).author("J.R.R. Tolkien").genre("Fantasy").build()));
+
+        assertNull(cache.get("byId"));
+        assertNull(cache.get("byGenre"));
+        assertNull(cache.get("byAuthor"));
+        assertNull(cache.get("catalog"));
+        assertEquals(RESPONSE, cache.get("other"));
+    }
+
+    @Test
+    void put_AfterConcurrentChange_ShouldNotStoreResponse() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+        long version = cache.version();
+
+        cache.invalidate(List.of(BookTags.book(1L)));
+        cache.put("byId", version, RESPONSE, Set.of(BookTags.book(1L)));
+
+        assertNull(cache.get("byId"));
+    }
+
+    @Test
+    void put_AfterConcurrentChangeToOtherTags_ShouldStoreResponse() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+        long version = cache.version();
+
+        cache.invalidate(List.of(BookTags.book(2L), BookTags.genre("Poetry")));
+        cache.put("byId", version, RESPONSE, Set.of(BookTags.book(1L)));
+
+        assertEquals(RESPONSE, cache.get("byId"));
+    }
+
+    @Test
+    void put_AfterMoreChangesThanRemembered_ShouldNotStoreResponse() {
+        GraphQLResponseCache cache = cache(new LibraryProperties.ResponseCache());
+        long version = cache.version();
+
+        for (long id = 2; id < 2 + GraphQLResponseCache.RECENT_INVALIDATIONS; id++) {
+            cache.invalidate(List.of(BookTags.book(id)));
+        }
+        cache.invalidate(List.of(BookTags.book(0L)));
+        cache.put("byId", version, RESPONSE, Set.of(BookTags.book(1L)));
+
+        assertNull(cache.get("byId"));
+    }
+
+    @Test
+    void put_ShouldBoundEntriesAndBytes() {
+        LibraryProperties.ResponseCache settings = new LibraryProperties.ResponseCache();
+        settings.setMaximumEntries(10);
+        settings.setMaximumSize(DataSize.ofKilobytes(10));
+        GraphQLResponseCache cache = cache(settings);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("small" + i, cache.version(), RESPONSE, Set.of());
+        }
+        cache.cache().cleanUp();
+        assertTrue(cache.cache().estimatedSize() <= 10, "entries: " + cache.cache().estimatedSize());
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("large" + i, cache.version(),
+                    new GraphQLResponseCache.CachedResponse(new byte[4_000], "\"large\""), Set.of());
+        }
+        cache.cache().cleanUp();
+        // The admission policy may keep the small entries instead, but never more than the byte bound
+        long bytes = cache.cache().policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(bytes <= DataSize.ofKilobytes(10).toBytes(), "bytes: " + bytes);
+    }
+
+    @Test
+    void instrumentation_ShouldTagRootArgumentsAndBooksRead() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("""
+                        type Query { bookById(id: ID!): Book booksByGenre(genre: String!): [Book!]! }
+                        type Book { id: ID title: String }"""),
+                RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder
+                                .dataFetcher("bookById", env -> null)
+                                .dataFetcher("booksByGenre", env -> List.of(
+                                        Book.builder().id(3L).title("Dune").build(),
+                                        Book.builder().id(4L).title("Emma").build())))
+                        .build());
+        GraphQL graphQL = GraphQL.newGraphQL(schema).instrumentation(new ResponseCacheTagInstrumentation()).build();
+        Set<String> tags = ConcurrentHashMap.newKeySet();
+
+        graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("{ bookById(id: 1) { title } booksByGenre(genre: \"Fantasy\") { title } }")
+                .graphQLContext(Map.of(GraphQLResponseCache.TAGS, tags))
+                .build());
+
+        assertEquals(Set.of("book:1", "genre:FANTASY", "book:3", "book:4"), tags);
+    }
+
+    private static GraphQLResponseCache cache(LibraryProperties.ResponseCache settings) {
+        return new GraphQLResponseCache(settings, 100, new ObjectMapper());
+    }
+
+    private static Map<String, Object> body(String query, Map<String, Object> variables) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", query);
+        body.put("variables", variables);
+        return body;
+    }
+}
@@ -0,0 +1,117 @@
+package com.swiftbeard.library_api.config;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCostInstrumentationTest {
+
+    private static final String SCHEMA = """
+            type Query { books(first: Int): BookConnection! }
+            type BookConnection { edges: [BookEdge!]! }
+            type BookEdge { node: Book! }
+            type Book { title: String author: Author }
+            type Author { name: String books: [Book!]! }
+            """;
+
+    private static final String BOOKS = "query Books { books(first: 10) { edges { node { title } } } }";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private LibraryProperties.Cost limits;
+
+    @BeforeEach
+    void setUp() {
+        limits = new LibraryProperties.Cost();
+    }
+
+    @Test
+    void shouldMultiplyChildCostByPageSize() {
+        ExecutionResult result = execute(BOOKS);
+
+        assertTrue(result.getErrors().isEmpty());
+        // books 1 + 10 * (edges 1 + node 1); edges are already counted by the page size
+        assertEquals(21, meterRegistry.get("graphql.cost").tag("operation", "Books").summary().max());
+        assertEquals(4, meterRegistry.get("graphql.depth").tag("operation", "Books").summary().max());
+    }
+
+    @Test
+    void shouldUseConfiguredWeightsAndDefaultListSize() {
+        limits.setFieldWeights(Map.of("Author.books", 5));
+
+        execute("query Nested { books(first: 2) { edges { node { author { books { title } } } } } }");
+
+        // books 1 + 2 * (edges 1 + node 1 + author 1 + Author.books 5)
+        assertEquals(1 + 2 * (1 + 1 + 1 + 5), meterRegistry.get("graphql.cost").summary().max());
+    }
+
+    @Test
+    void shouldRejectTooDeepQueriesBeforeFetching() {
+        limits.setMaxDepth(3);
+
+        ExecutionResult result = execute(BOOKS);
+
+        assertEquals("Query depth 4 exceeds the maximum of 3", result.getErrors().get(0).getMessage());
+        assertNull(result.getData());
+        assertEquals(0, fetches.get());
+        assertEquals(1, meterRegistry.get(QueryCostInstrumentation.REJECTED_COUNTER).tag("limit", "depth").counter().count());
+    }
+
+    @Test
+    void shouldRejectTooExpensiveQueriesBeforeFetching() {
+        limits.setMaxCost(20);
+
+        ExecutionResult result = execute(BOOKS);
+
+        assertEquals("Query cost 21 exceeds the maximum of 20", result.getErrors().get(0).getMessage());
+        assertEquals(0, fetches.get());
+        assertEquals(1, meterRegistry.get(QueryCostInstrumentation.REJECTED_COUNTER).tag("limit", "cost").counter().count());
+    }
+
+    @Test
+    void shouldCountQueriesNearTheLimit() {
+        limits.setMaxCost(25);
+
+        ExecutionResult result = execute(BOOKS);
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(1, meterRegistry.get(QueryCostInstrumentation.NEAR_LIMIT_COUNTER).tag("limit", "cost").counter().count());
+    }
+
+    @Test
+    void shouldNotCountIntrospection() {
+        limits.setMaxDepth(1);
+
+        ExecutionResult result = execute("{ __schema { types { fields { type { name } } } } }");
+
+        assertTrue(result.getErrors().isEmpty());
+    }
+
+    private ExecutionResult execute(String query) {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA),
+                RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder.dataFetcher("books", env -> {
+                            fetches.incrementAndGet();
+                            return Map.of("edges", List.of());
+                        }))
+                        .build());
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(new QueryCostInstrumentation(meterRegistry, limits))
+                .build()
+                .execute(query);
+    }
+}
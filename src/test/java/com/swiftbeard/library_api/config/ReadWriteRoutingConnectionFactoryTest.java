@@ -0,0 +1,127 @@
+package com.swiftbeard.library_api.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica, each holding its own name.
+ */
+class ReadWriteRoutingConnectionFactoryTest {
+
+    private ConnectionFactory primary;
+    private ConnectionFactory replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("routingPrimary", "primary");
+        replica = database("routingReplica", "replica");
+    }
+
+    @Test
+    void create_OutsideTransaction_ShouldUseReplica() {
+        DatabaseClient client = DatabaseClient.create(new ReadWriteRoutingConnectionFactory(primary, replica, Duration.ZERO));
+
+        StepVerifier.create(source(client))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    @Test
+    void create_InTransaction_ShouldUsePrimary() {
+        ReadWriteRoutingConnectionFactory routing = new ReadWriteRoutingConnectionFactory(primary, replica, Duration.ZERO);
+        DatabaseClient client = DatabaseClient.create(routing);
+
+        StepVerifier.create(source(client).as(transactional(routing)::transactional))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(source(client))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    @Test
+    void create_AfterCommit_ShouldKeepOnlyCommittingSessionOnPrimary() {
+        ReadWriteRoutingConnectionFactory routing = new ReadWriteRoutingConnectionFactory(primary, replica, Duration.ofMinutes(1));
+        DatabaseClient client = DatabaseClient.create(routing);
+        ReadWriteRoutingConnectionFactory.Session writer = new ReadWriteRoutingConnectionFactory.Session(0);
+        ReadWriteRoutingConnectionFactory.Session other = new ReadWriteRoutingConnectionFactory.Session(0);
+
+        StepVerifier.create(source(client).contextWrite(session(writer)))
+                .expectNext("replica")
+                .verifyComplete();
+        StepVerifier.create(source(client).as(transactional(routing)::transactional)
+                        .then(source(client))
+                        .contextWrite(session(writer)))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(source(client).contextWrite(session(other)))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    @Test
+    void create_AfterLongTransaction_ShouldCountWindowFromCommit() {
+        ReadWriteRoutingConnectionFactory routing = new ReadWriteRoutingConnectionFactory(primary, replica, Duration.ofSeconds(1));
+        DatabaseClient client = DatabaseClient.create(routing);
+        ReadWriteRoutingConnectionFactory.Session writer = new ReadWriteRoutingConnectionFactory.Session(0);
+
+        StepVerifier.create(source(client).delayElement(Duration.ofMillis(1500))
+                        .as(transactional(routing)::transactional)
+                        .then(source(client))
+                        .contextWrite(session(writer)))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void create_FillingCacheAfterAnyCommit_ShouldUsePrimary() {
+        ReadWriteRoutingConnectionFactory routing = new ReadWriteRoutingConnectionFactory(primary, replica, Duration.ofMinutes(1));
+        DatabaseClient client = DatabaseClient.create(routing);
+
+        StepVerifier.create(ReadWriteRoutingConnectionFactory.fillingCache(source(client)))
+                .expectNext("replica")
+                .verifyComplete();
+        StepVerifier.create(source(client).as(transactional(routing)::transactional))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(ReadWriteRoutingConnectionFactory.fillingCache(source(client)))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(source(client))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    private static TransactionalOperator transactional(ReadWriteRoutingConnectionFactory routing) {
+        return TransactionalOperator.create(new ReadYourWritesTransactionManager(routing));
+    }
+
+    private static Context session(ReadWriteRoutingConnectionFactory.Session session) {
+        return Context.of(ReadWriteRoutingConnectionFactory.Session.class, session);
+    }
+
+    private static Mono<String> source(DatabaseClient client) {
+        return client.sql("SELECT name FROM source")
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+
+    private static ConnectionFactory database(String database, String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1");
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        client.sql("DROP TABLE IF EXISTS source").then()
+                .then(client.sql("CREATE TABLE source (name VARCHAR(20))").then())
+                .then(client.sql("INSERT INTO source VALUES (:name)").bind("name", name).then())
+                .block();
+        return connectionFactory;
+    }
+}
@@ -0,0 +1,55 @@
+package com.swiftbeard.library_api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void filter_AfterCommit_ShouldSetCookie() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/graphql"));
+        WebFilterChain commit = current -> Mono.deferContextual(context -> {
+            context.get(ReadWriteRoutingConnectionFactory.Session.class).extend(System.currentTimeMillis() + 5000);
+            return current.getResponse().setComplete();
+        });
+
+        StepVerifier.create(filter.filter(exchange, commit)).verifyComplete();
+
+        ResponseCookie cookie = exchange.getResponse().getCookies().getFirst(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(Duration.ofSeconds(5), cookie.getMaxAge());
+    }
+
+    @Test
+    void filter_ShouldReadWindowFromCookieButNotExtendIt() {
+        AtomicLong primaryUntil = new AtomicLong();
+        WebFilterChain read = current -> Mono.deferContextual(context -> {
+            primaryUntil.set(context.get(ReadWriteRoutingConnectionFactory.Session.class).primaryUntil());
+            return current.getResponse().setComplete();
+        });
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/graphql")
+                .cookie(new HttpCookie(ReadYourWritesFilter.COOKIE, Long.toString(Long.MAX_VALUE))));
+
+        StepVerifier.create(filter.filter(exchange, read)).verifyComplete();
+
+        assertTrue(primaryUntil.get() <= System.currentTimeMillis() + 5000);
+        assertTrue(primaryUntil.get() > System.currentTimeMillis());
+        assertNull(exchange.getResponse().getCookies().getFirst(ReadYourWritesFilter.COOKIE));
+    }
+}
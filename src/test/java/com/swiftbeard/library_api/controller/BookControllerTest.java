@@ -1,22 +1,38 @@
 package com.swiftbeard.library_api.controller;
 
+import com.swiftbeard.library_api.model.Author;
 import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import com.swiftbeard.library_api.model.BookColumn;
+import com.swiftbeard.library_api.model.BookConnection;
 import com.swiftbeard.library_api.model.BookInput;
+import com.swiftbeard.library_api.model.BookResult;
 import com.swiftbeard.library_api.model.BookUpdateInput;
+import com.swiftbeard.library_api.model.BulkBookResult;
 import com.swiftbeard.library_api.service.BookService;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,29 +41,33 @@ class BookControllerTest {
     @Mock
     private BookService bookService;
 
-    @InjectMocks
     private BookController bookController;
 
     private Book book;
+    private BookConnection connection;
     private BookInput bookInput;
     private BookUpdateInput bookUpdateInput;
 
     @BeforeEach
     void setUp() {
+        bookController = new BookController(bookService, new DefaultBatchLoaderRegistry());
+
         book = Book.builder()
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-1234567890")
+                .isbn(9781234567897L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
                 .build();
 
+        connection = BookConnection.of(List.of(book), 20, false);
+
         bookInput = new BookInput(
                 "Test Book",
                 "Test Author",
-                "978-1234567890",
+                9781234567897L,
                 2023,
                 "Test",
                 true
@@ -57,7 +77,7 @@ class BookControllerTest {
                 1L,
                 "Updated Book",
                 "Test Author",
-                "978-1234567890",
+                9781234567897L,
                 2023,
                 "Test",
                 true
@@ -65,11 +85,24 @@ class BookControllerTest {
     }
 
     @Test
-    void books_ShouldReturnAllBooks() {
-        when(bookService.getAllBooks()).thenReturn(Flux.just(book));
+    void books_ShouldReturnPageOfBooks() {
+        when(bookService.getBooks(eq(10), isNull(), eq(BookColumn.ALL))).thenReturn(Mono.just(connection));
 
-        StepVerifier.create(bookController.books())
-                .expectNext(book)
+        StepVerifier.create(bookController.books(10, null, null))
+                .expectNext(connection)
+                .verifyComplete();
+    }
+
+    @Test
+    void books_ShouldSelectOnlyColumnsOfRequestedFields() {
+        DataFetchingFieldSelectionSet selectionSet = mock(DataFetchingFieldSelectionSet.class);
+        List<SelectedField> fields = List.of(selectedField("title"), selectedField("authorDetails"), selectedField("__typename"));
+        when(selectionSet.getFields("edges/node/*")).thenReturn(fields);
+        when(bookService.getBooks(10, null, Set.of(BookColumn.ID, BookColumn.TITLE, BookColumn.AUTHOR_ID)))
+                .thenReturn(Mono.just(connection));
+
+        StepVerifier.create(bookController.books(10, null, selectionSet))
+                .expectNext(connection)
                 .verifyComplete();
     }
 
@@ -83,20 +116,64 @@ class BookControllerTest {
     }
 
     @Test
-    void booksByAuthor_ShouldReturnBooksByAuthor() {
-        when(bookService.getBooksByAuthor(anyString())).thenReturn(Flux.just(book));
+    void bookByIsbn_ShouldReturnBookByIsbn() {
+        when(bookService.getBookByIsbn(9781234567897L)).thenReturn(Mono.just(book));
 
-        StepVerifier.create(bookController.booksByAuthor("Test Author"))
+        StepVerifier.create(bookController.bookByIsbn(9781234567897L))
                 .expectNext(book)
                 .verifyComplete();
     }
 
+    @Test
+    void booksByAuthor_ShouldReturnBooksByAuthor() {
+        when(bookService.getBooksByAuthor(anyString(), any(), any(), any())).thenReturn(Mono.just(connection));
+
+        StepVerifier.create(bookController.booksByAuthor("Test Author", null, null, null))
+                .expectNext(connection)
+                .verifyComplete();
+    }
+
     @Test
     void booksByGenre_ShouldReturnBooksByGenre() {
-        when(bookService.getBooksByGenre(anyString())).thenReturn(Flux.just(book));
+        when(bookService.getBooksByGenre(anyString(), any(), any(), any())).thenReturn(Mono.just(connection));
 
-        StepVerifier.create(bookController.booksByGenre("Test"))
-                .expectNext(book)
+        StepVerifier.create(bookController.booksByGenre("Test", null, null, null))
+                .expectNext(connection)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchBooks_ShouldReturnMatchingBooks() {
+        when(bookService.searchBooks(eq("test"), any(), any(), any())).thenReturn(Mono.just(connection));
+
+        StepVerifier.create(bookController.searchBooks("test", null, null, null))
+                .expectNext(connection)
+                .verifyComplete();
+    }
+
+    @Test
+    void authorDetails_ShouldResolveAuthorsForAllBooks() {
+        Map<Book, Author> authors = Map.of(book, new Author(7L, "Test Author"));
+        when(bookService.getAuthorsOf(List.of(book))).thenReturn(Mono.just(authors));
+
+        StepVerifier.create(bookController.authorDetails(List.of(book)))
+                .expectNext(authors)
+                .verifyComplete();
+    }
+
+    @Test
+    void loadAuthorBooks_ShouldLoadPagesOfAllAuthorsWithSameArgumentsTogether() {
+        BookConnection empty = BookConnection.of(List.of(), 10, false);
+        BookController.AuthorBooksKey first = new BookController.AuthorBooksKey(7L, 10, null, BookColumn.ALL);
+        BookController.AuthorBooksKey second = new BookController.AuthorBooksKey(8L, 10, null, BookColumn.ALL);
+        BookController.AuthorBooksKey other = new BookController.AuthorBooksKey(7L, 5, null, BookColumn.ALL);
+        when(bookService.getBooksOfAuthors(Set.of(7L, 8L), 10, null, BookColumn.ALL))
+                .thenReturn(Mono.just(Map.of(7L, connection, 8L, empty)));
+        when(bookService.getBooksOfAuthors(Set.of(7L), 5, null, BookColumn.ALL))
+                .thenReturn(Mono.just(Map.of(7L, empty)));
+
+        StepVerifier.create(bookController.loadAuthorBooks(Set.of(first, second, other)))
+                .expectNext(Map.of(first, connection, second, empty, other, empty))
                 .verifyComplete();
     }
 
@@ -118,6 +195,26 @@ class BookControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void createBooks_ShouldMapInputsAndReturnResults() {
+        BulkBookResult result = BulkBookResult.of(List.of(BookResult.saved(0, book)));
+        when(bookService.createBooks(any())).thenReturn(Mono.just(result));
+
+        StepVerifier.create(bookController.createBooks(List.of(bookInput)))
+                .expectNext(result)
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteBooks_ShouldReturnResults() {
+        BulkBookResult result = BulkBookResult.of(List.of(BookResult.deleted(0, 1L)));
+        when(bookService.deleteBooks(List.of(1L))).thenReturn(Mono.just(result));
+
+        StepVerifier.create(bookController.deleteBooks(List.of(1L)))
+                .expectNext(result)
+                .verifyComplete();
+    }
+
     @Test
     void deleteBook_ShouldReturnTrue() {
         when(bookService.deleteBook(anyLong())).thenReturn(Mono.just(true));
@@ -126,4 +223,20 @@ class BookControllerTest {
                 .expectNext(true)
                 .verifyComplete();
     }
+
+    @Test
+    void bookChanged_ShouldStreamFilteredChanges() {
+        BookChangeEvent event = BookChangeEvent.of(BookChangeType.UPDATED, book);
+        when(bookService.getBookChanges("Fantasy", null)).thenReturn(Flux.just(event));
+
+        StepVerifier.create(bookController.bookChanged("Fantasy", null))
+                .expectNext(event)
+                .verifyComplete();
+    }
+
+    private static SelectedField selectedField(String name) {
+        SelectedField field = mock(SelectedField.class);
+        when(field.getName()).thenReturn(name);
+        return field;
+    }
 }
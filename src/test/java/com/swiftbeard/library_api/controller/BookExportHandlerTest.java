@@ -0,0 +1,85 @@
+package com.swiftbeard.library_api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.CatalogRouteConfig;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookExportHandlerTest {
+
+    @Mock
+    private BookService bookService;
+
+    private WebTestClient client;
+
+    private final Book hobbit = Book.builder().id(1L).title("The Hobbit").author("J.R.R. Tolkien")
+            .isbn(9780547928227L).publishYear(1937).genre("Fantasy").available(true).build();
+    private final Book quoted = Book.builder().id(2L).title("Say \"Hello\", World").author("Someone")
+            .isbn(9781234567897L).available(false).build();
+
+    @BeforeEach
+    void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        BookExportHandler handler = new BookExportHandler(bookService, properties, new ObjectMapper());
+        client = WebTestClient.bindToRouterFunction(new CatalogRouteConfig().bookExportRoutes(handler)).build();
+    }
+
+    @Test
+    void export_ShouldStreamNdjsonByDefault() {
+        when(bookService.exportBooks(null, null, 1_000)).thenReturn(Flux.just(hobbit, quoted));
+
+        client.get().uri("/books/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo("""
+                        {"id":1,"title":"The Hobbit","author":"J.R.R. Tolkien","isbn":9780547928227,"publishYear":1937,"genre":"Fantasy","available":true}
+                        {"id":2,"title":"Say \\"Hello\\", World","author":"Someone","isbn":9781234567897,"publishYear":null,"genre":null,"available":false}
+                        """);
+    }
+
+    @Test
+    void export_ShouldWriteQuotedCsvWithFilters() {
+        when(bookService.exportBooks("someone", "fantasy", 1_000)).thenReturn(Flux.just(hobbit, quoted));
+
+        client.get().uri("/books/export?format=csv&author=someone&genre=fantasy")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(BookExportHandler.TEXT_CSV)
+                .expectBody(String.class).isEqualTo("""
+                        id,title,author,isbn,publishYear,genre,available
+                        1,The Hobbit,J.R.R. Tolkien,9780547928227,1937,Fantasy,true
+                        2,"Say ""Hello"", World",Someone,9781234567897,,,false
+                        """);
+    }
+
+    @Test
+    void export_ShouldPickCsvFromAcceptHeader() {
+        when(bookService.exportBooks(null, null, 1_000)).thenReturn(Flux.empty());
+
+        client.get().uri("/books/export")
+                .accept(BookExportHandler.TEXT_CSV)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("id,title,author,isbn,publishYear,genre,available\n");
+    }
+
+    @Test
+    void export_WithUnknownFormat_ShouldBeBadRequest() {
+        client.get().uri("/books/export?format=xml")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,117 @@
+package com.swiftbeard.library_api.controller;
+
+import com.swiftbeard.library_api.model.ImportProgress;
+import com.swiftbeard.library_api.model.Isbn;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams a generated NDJSON file of {@code importTest.rows} books (two million by default) through
+ * /books/import and reports the ingest rate and peak heap use, measured after a full GC at every tenth of the
+ * upload and once it has finished. The in-memory database and the search index keep every imported row on the
+ * heap, so the peak grows with {@code importTest.rows}; {@code importTest.maxHeapMb} sets a ceiling for it
+ * (none by default). Run with {@code ./gradlew performanceTest}.
+ */
+@Slf4j
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.springframework.data.r2dbc=WARN",
+        "logging.level.io.r2dbc=WARN",
+        "logging.level.com.swiftbeard.library_api=WARN",
+        "logging.level.com.swiftbeard.library_api.controller.BookImportPerformanceTest=INFO"
+})
+class BookImportPerformanceTest {
+
+    private static final int ROWS_PER_CHUNK = 1_000;
+    private static final int HEAP_SAMPLES = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void importBooks_ShouldIngestGeneratedFile() {
+        int rows = Integer.getInteger("importTest.rows", 2_000_000);
+        double minRowsPerSecond = Double.parseDouble(System.getProperty("importTest.minRowsPerSecond", "0"));
+        long maxHeapMb = Long.getLong("importTest.maxHeapMb", 0);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        long sampleEvery = Math.max(1, rows / HEAP_SAMPLES);
+        AtomicLong nextSample = new AtomicLong(sampleEvery);
+
+        long start = System.nanoTime();
+        ImportProgress result = WebClient.create("http://localhost:" + port)
+                .post()
+                .uri("/books/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(BodyInserters.fromDataBuffers(generate(rows)))
+                .retrieve()
+                .bodyToFlux(ImportProgress.class)
+                .doOnNext(progress -> {
+                    if (progress.processed() >= nextSample.get()) {
+                        nextSample.set(progress.processed() + sampleEvery);
+                        peakHeap.accumulateAndGet(heapAfterGc(memory), Math::max);
+                    }
+                })
+                .last()
+                .block();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rowsPerSecond = rows / seconds;
+        peakHeap.accumulateAndGet(heapAfterGc(memory), Math::max);
+        long peakHeapMb = peakHeap.get() / (1024 * 1024);
+
+        log.info("Imported {} rows in {} s: {} rows/s, peak heap {} MB", result.imported(),
+                String.format("%.1f", seconds), String.format("%,.0f", rowsPerSecond), peakHeapMb);
+        assertTrue(result.done());
+        assertEquals(rows, result.processed());
+        assertEquals(rows, result.imported());
+        assertTrue(rowsPerSecond >= minRowsPerSecond,
+                () -> String.format("%,.0f rows/s is below the %,.0f rows/s floor", rowsPerSecond, minRowsPerSecond));
+        assertTrue(maxHeapMb == 0 || peakHeapMb <= maxHeapMb,
+                () -> String.format("peak heap of %,d MB is above the %,d MB ceiling", peakHeapMb, maxHeapMb));
+    }
+
+    /**
+     * Heap still in use after a full collection, so the samples track retained memory rather than garbage.
+     */
+    private static long heapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The upload is generated chunk by chunk as the client sends it, so the file never exists in memory.
+     */
+    private static Flux<DataBuffer> generate(int rows) {
+        return Flux.range(0, (rows + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK)
+                .map(chunk -> {
+                    StringBuilder lines = new StringBuilder(ROWS_PER_CHUNK * 128);
+                    int end = Math.min(rows, (chunk + 1) * ROWS_PER_CHUNK);
+                    for (int i = chunk * ROWS_PER_CHUNK; i < end; i++) {
+                        lines.append("{\"title\":\"Imported Book ").append(i)
+                                .append("\",\"author\":\"Author ").append(i % 1_000)
+                                .append("\",\"isbn\":\"").append(Isbn.complete(979_000_000_000L + i))
+                                .append("\",\"publishYear\":").append(1900 + i % 125)
+                                .append(",\"genre\":\"Genre ").append(i % 20)
+                                .append("\"}\n");
+                    }
+                    return DefaultDataBufferFactory.sharedInstance.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                });
+    }
+}
@@ -0,0 +1,140 @@
+package com.swiftbeard.library_api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.GraphQLResponseCache;
+import com.swiftbeard.library_api.config.GraphQLRouteConfig;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.service.PersistedQueryRegistry;
+import graphql.ExecutionInput;
+import graphql.ExecutionResultImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersistedQueryHandlerTest {
+
+    private static final String QUERY = "query Books { books { edges { cursor } } }";
+
+    @Mock
+    private WebGraphQlHandler webGraphQlHandler;
+
+    private final LibraryProperties properties = new LibraryProperties();
+
+    @Test
+    void get_ShouldAnswerMatchingIfNoneMatchFromCache() {
+        when(webGraphQlHandler.handleRequest(any())).thenReturn(Mono.just(response("c1")));
+        WebTestClient client = client(true);
+
+        String etag = client.get().uri(builder -> builder.path("/graphql").queryParam("query", "{query}").build(QUERY))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noCache())
+                .expectBody(String.class).isEqualTo("{\"data\":{\"books\":{\"edges\":[{\"cursor\":\"c1\"}]}}}")
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(etag);
+
+        client.get().uri(builder -> builder.path("/graphql").queryParam("query", "{query}").build(QUERY))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+
+        verify(webGraphQlHandler, times(1)).handleRequest(any());
+    }
+
+    @Test
+    void get_WithoutResponseCache_ShouldCompareResultHash() {
+        when(webGraphQlHandler.handleRequest(any()))
+                .thenReturn(Mono.just(response("c1")), Mono.just(response("c1")), Mono.just(response("c2")));
+        WebTestClient client = client(false);
+
+        String etag = client.get().uri(builder -> builder.path("/graphql").queryParam("query", "{query}").build(QUERY))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        client.get().uri(builder -> builder.path("/graphql").queryParam("query", "{query}").build(QUERY))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+        client.get().uri(builder -> builder.path("/graphql").queryParam("query", "{query}").build(QUERY))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"data\":{\"books\":{\"edges\":[{\"cursor\":\"c2\"}]}}}");
+    }
+
+    @Test
+    void get_ShouldUseMaxAgeOfOperation() {
+        properties.getGraphql().getHttpCache().getOperationMaxAge().put("Books", Duration.ofSeconds(30));
+        when(webGraphQlHandler.handleRequest(any())).thenReturn(Mono.just(response("c1")));
+
+        client(true).get().uri(builder -> builder.path("/graphql")
+                        .queryParam("query", "{query}")
+                        .queryParam("operationName", "Books")
+                        .build(QUERY))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=30");
+    }
+
+    @Test
+    void post_ShouldNotSendETag() {
+        when(webGraphQlHandler.handleRequest(any())).thenReturn(Mono.just(response("c1")));
+
+        client(true).post().uri("/graphql")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("query", QUERY))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.ETAG)
+                .expectHeader().doesNotExist(HttpHeaders.CACHE_CONTROL);
+    }
+
+    private WebTestClient client(boolean responseCache) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Optional<GraphQLResponseCache> cache = responseCache
+                ? Optional.of(new GraphQLResponseCache(properties.getGraphql().getResponseCache(), 100, objectMapper))
+                : Optional.empty();
+        PersistedQueryHandler handler = new PersistedQueryHandler(webGraphQlHandler,
+                new PersistedQueryRegistry(properties, new SimpleMeterRegistry()), objectMapper, cache, properties);
+        return WebTestClient.bindToRouterFunction(
+                new GraphQLRouteConfig().persistedQueryRoutes(handler, new GraphQlProperties())).build();
+    }
+
+    private static WebGraphQlResponse response(String cursor) {
+        Map<String, Object> data = Map.of("books", Map.of("edges", List.of(Map.of("cursor", cursor))));
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(
+                ExecutionInput.newExecutionInput(QUERY).build(),
+                ExecutionResultImpl.newExecutionResult().data(data).build()));
+    }
+}
@@ -28,7 +28,7 @@ class BookTest {
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-0547928227")
+                .isbn(9780547928227L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
@@ -38,7 +38,7 @@ class BookTest {
     @Test
     void whenValidBook_thenNoViolations() {
         Set<ConstraintViolation<Book>> violations = validator.validate(validBook);
-        assertFalse(violations.isEmpty());
+        assertTrue(violations.isEmpty());
     }
 
     @Test
@@ -47,7 +47,7 @@ class BookTest {
                 .id(1L)
                 .title(null)
                 .author("Test Author")
-                .isbn("978-0547928227")
+                .isbn(9780547928227L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
@@ -64,7 +64,7 @@ class BookTest {
                 .id(1L)
                 .title("Test Book")
                 .author(null)
-                .isbn("978-0547928227")
+                .isbn(9780547928227L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
@@ -92,30 +92,13 @@ class BookTest {
         assertEquals("ISBN is required", violations.iterator().next().getMessage());
     }
 
-    @Test
-    void whenIsbnIsInvalid_thenViolation() {
-        Book book = Book.builder()
-                .id(1L)
-                .title("Test Book")
-                .author("Test Author")
-                .isbn("invalid-isbn")
-                .publishYear(2023)
-                .genre("Test")
-                .available(true)
-                .build();
-
-        Set<ConstraintViolation<Book>> violations = validator.validate(book);
-        assertFalse(violations.isEmpty());
-        assertEquals("Invalid ISBN format", violations.iterator().next().getMessage());
-    }
-
     @Test
     void whenPublishYearIsNegative_thenViolation() {
         Book book = Book.builder()
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-0547928227")
+                .isbn(9780547928227L)
                 .publishYear(-2023)
                 .genre("Test")
                 .available(true)
@@ -132,7 +115,7 @@ class BookTest {
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-0547928227")
+                .isbn(9780547928227L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(null)
@@ -0,0 +1,57 @@
+package com.swiftbeard.library_api.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsbnTest {
+
+    @Test
+    void parse_ShouldAcceptIsbn13WithOrWithoutSeparators() {
+        assertEquals(9780547928227L, Isbn.parse("9780547928227"));
+        assertEquals(9780547928227L, Isbn.parse("978-0-547-92822-7"));
+        assertEquals(9780547928227L, Isbn.parse("978 0547928227"));
+        assertEquals(9780547928227L, Isbn.parse("ISBN-13: 978-0-547-92822-7"));
+    }
+
+    @Test
+    void parse_ShouldNormalizeIsbn10ToIsbn13() {
+        assertEquals(9780451524935L, Isbn.parse("0451524934"));
+        assertEquals(9780547928227L, Isbn.parse("0-547-92822-X"));
+        assertEquals(9780547928227L, Isbn.parse("isbn 054792822x"));
+    }
+
+    @Test
+    void parse_ShouldRejectWrongCheckDigits() {
+        assertEquals(Isbn.INVALID, Isbn.parse("978-1234567890"));
+        assertEquals(Isbn.INVALID, Isbn.parse("0451524935"));
+    }
+
+    @Test
+    void parse_ShouldRejectMalformedInput() {
+        assertEquals(Isbn.INVALID, Isbn.parse(""));
+        assertEquals(Isbn.INVALID, Isbn.parse("not-an-isbn"));
+        assertEquals(Isbn.INVALID, Isbn.parse("978--0547928227"));
+        assertEquals(Isbn.INVALID, Isbn.parse("-9780547928227"));
+        assertEquals(Isbn.INVALID, Isbn.parse("9780547928227-"));
+        assertEquals(Isbn.INVALID, Isbn.parse("97805479282270"));
+        assertEquals(Isbn.INVALID, Isbn.parse("X547928220"));
+        // Valid EAN-13 check digit, but not in the 978/979 Bookland range
+        assertEquals(Isbn.INVALID, Isbn.parse("4006381333931"));
+    }
+
+    @Test
+    void isValid_ShouldCheckRangeAndCheckDigit() {
+        assertTrue(Isbn.isValid(9780547928227L));
+        assertFalse(Isbn.isValid(9780547928228L));
+        assertFalse(Isbn.isValid(547928227L));
+    }
+
+    @Test
+    void complete_ShouldAppendCheckDigit() {
+        assertEquals(9781234567897L, Isbn.complete(978123456789L));
+        assertEquals(9780000000002L, Isbn.complete(978000000000L));
+    }
+}
@@ -0,0 +1,16 @@
+package com.swiftbeard.library_api.repository;
+
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Checks the {@link BookRepositoryIndexTest} plans once {@code scaleTest.books} generated books (100,000 by
+ * default) and their statistics are loaded. Run with {@code ./gradlew scaleTest}.
+ */
+@Tag("scale")
+class BookRepositoryIndexScaleTest extends BookRepositoryIndexTest {
+
+    @Override
+    protected int backgroundBooks() {
+        return Integer.getInteger("scaleTest.books", 100_000);
+    }
+}
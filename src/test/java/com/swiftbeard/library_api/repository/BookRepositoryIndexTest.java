@@ -0,0 +1,141 @@
+package com.swiftbeard.library_api.repository;
+
+import com.swiftbeard.library_api.config.CatalogGenerator;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with {@code EXPLAIN} that every book lookup is answered from an index rather than a table scan.
+ * searchByTitle is left out: its leading-wildcard LIKE cannot use one, and full-text search goes through
+ * BookSearchIndex instead.
+ */
+@DataR2dbcTest
+class BookRepositoryIndexTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private static Class<?> generatedFor;
+
+    /**
+     * Generated books loaded before explaining, so the planner works from realistic statistics. Zero here;
+     * {@link BookRepositoryIndexScaleTest} checks the same plans against a large catalog.
+     */
+    protected int backgroundBooks() {
+        return 0;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // The tests only explain queries, so the catalog is generated once per class
+        if (generatedFor == getClass()) {
+            return;
+        }
+        StepVerifier.create(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).populate(connectionFactory))
+                .verifyComplete();
+        if (backgroundBooks() > 0) {
+            LibraryProperties.Scale settings = new LibraryProperties.Scale();
+            settings.setBooks(backgroundBooks());
+            settings.setAuthors(Math.max(1, backgroundBooks() / 20));
+            StepVerifier.create(new CatalogGenerator(databaseClient, settings).generate())
+                    .expectNext((long) backgroundBooks())
+                    .verifyComplete();
+        }
+        generatedFor = getClass();
+    }
+
+    @Test
+    void findByAuthorIgnoreCase_ShouldUseAuthorKeyIndex() throws NoSuchMethodException {
+        assertUsesIndex(queryOf("findByAuthorIgnoreCase", String.class), Map.of("author", "george orwell"),
+                "IDX_BOOKS_AUTHOR_KEY");
+    }
+
+    @Test
+    void findByGenreIgnoreCase_ShouldUseGenreKeyIndex() throws NoSuchMethodException {
+        assertUsesIndex(queryOf("findByGenreIgnoreCase", String.class), Map.of("genre", "fantasy"),
+                "IDX_BOOKS_GENRE_KEY");
+    }
+
+    @Test
+    void findPage_ShouldUsePrimaryKey() throws NoSuchMethodException {
+        assertUsesIndex(queryOf("findPage", long.class, int.class), Map.of("afterId", 1L, "limit", 10),
+                "PRIMARY_KEY");
+        assertUsesIndex(projected(BookRepositoryCustomImpl.PAGE), Map.of("afterId", 1L, "limit", 10),
+                "PRIMARY_KEY");
+    }
+
+    @Test
+    void findPageByAuthor_ShouldUseAuthorKeyIndex() {
+        assertUsesIndex(projected(BookRepositoryCustomImpl.PAGE_BY_AUTHOR),
+                Map.of("author", "george orwell", "afterId", 0L, "limit", 10), "IDX_BOOKS_AUTHOR_KEY");
+    }
+
+    @Test
+    void findPageByGenre_ShouldUseGenreKeyIndex() {
+        assertUsesIndex(projected(BookRepositoryCustomImpl.PAGE_BY_GENRE),
+                Map.of("genre", "fantasy", "afterId", 0L, "limit", 10), "IDX_BOOKS_GENRE_KEY");
+    }
+
+    @Test
+    void findPagesByAuthorIds_ShouldUseAuthorIdIndex() {
+        assertUsesIndex(projected(BookRepositoryCustomImpl.pageByAuthorId("author0")),
+                Map.of("author0", 1L, "afterId", 0L, "limit", 10), "IDX_BOOKS_AUTHOR_ID");
+    }
+
+    @Test
+    void findAllById_ShouldUsePrimaryKey() {
+        assertUsesIndex(projected(BookRepositoryCustomImpl.BY_IDS), Map.of("ids", List.of(1L, 2L)), "PRIMARY_KEY");
+    }
+
+    @Test
+    void derivedLookups_ShouldUseTheirIndexes() {
+        assertUsesIndex("SELECT * FROM books WHERE isbn = :isbn", Map.of("isbn", 9780547928227L), "UK_BOOKS_ISBN");
+        assertUsesIndex("SELECT * FROM books WHERE isbn IN (:isbns)",
+                Map.of("isbns", List.of(9780547928227L, 9780451524935L)), "UK_BOOKS_ISBN");
+    }
+
+    @Test
+    void availabilityAndYearFilters_ShouldUseTheirIndexes() {
+        assertUsesIndex("SELECT id FROM books WHERE available = :available AND id > :afterId ORDER BY id",
+                Map.of("available", false, "afterId", 0L), "IDX_BOOKS_AVAILABLE");
+        assertUsesIndex("SELECT id FROM books WHERE publish_year BETWEEN :from AND :to",
+                Map.of("from", 1900, "to", 1950), "IDX_BOOKS_PUBLISH_YEAR");
+    }
+
+    private static String queryOf(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return BookRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class).value();
+    }
+
+    private static String projected(String condition) {
+        return "SELECT id, title FROM books WHERE " + condition;
+    }
+
+    private void assertUsesIndex(String sql, Map<String, Object> parameters, String index) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("EXPLAIN " + sql);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        String plan = spec.map(row -> row.get(0, String.class)).one().block();
+
+        assertFalse(plan.contains("tableScan"), () -> "Table scan for " + sql + ":\n" + plan);
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " for " + sql + ":\n" + plan);
+    }
+}
@@ -0,0 +1,16 @@
+package com.swiftbeard.library_api.repository;
+
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Runs every {@link BookRepositoryTest} with {@code scaleTest.books} generated books (100,000 by default)
+ * next to the test's own rows. Run with {@code ./gradlew scaleTest}.
+ */
+@Tag("scale")
+class BookRepositoryScaleTest extends BookRepositoryTest {
+
+    @Override
+    protected int backgroundBooks() {
+        return Integer.getInteger("scaleTest.books", 100_000);
+    }
+}
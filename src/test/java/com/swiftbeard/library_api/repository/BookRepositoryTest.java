@@ -1,80 +1,103 @@
 package com.swiftbeard.library_api.repository;
 
+import com.swiftbeard.library_api.config.CatalogGenerator;
+import com.swiftbeard.library_api.config.LibraryProperties;
 import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookColumn;
+import io.r2dbc.spi.ConnectionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
 import org.springframework.r2dbc.core.DatabaseClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.Set;
+
 @DataR2dbcTest
 class BookRepositoryTest {
 
-    @InjectMocks
+    @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
     @Autowired
     private DatabaseClient databaseClient;
 
+    // The class whose generated catalog is in the database, and the last generated id. The catalog is
+    // generated once per class; each test only replaces the rows outside it.
+    private static Class<?> generatedFor;
+    private static long lastGeneratedId;
+
+    /**
+     * Generated books added after the test's own rows, which never match their authors, genres or titles.
+     * Zero here; {@link BookRepositoryScaleTest} runs the same tests against a large catalog.
+     */
+    protected int backgroundBooks() {
+        return 0;
+    }
+
     @BeforeEach
     void setUp() {
-        // Create table if not exists
-        Mono<Void> createTable = databaseClient.sql(
-                "CREATE TABLE IF NOT EXISTS books (" +
-                        "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                        "title VARCHAR(255) NOT NULL," +
-                        "author VARCHAR(255) NOT NULL," +
-                        "isbn VARCHAR(20) NOT NULL," +
-                        "publish_year INT," +
-                        "genre VARCHAR(100)," +
-                        "available BOOLEAN NOT NULL DEFAULT TRUE)"
-        ).then();
-
-        // Clean up existing data
-        Mono<Void> deleteAll = bookRepository.deleteAll();
-
-        // Insert test data
-        Mono<Book> insertBook1 = bookRepository.save(
-                Book.builder()
-                        .title("The Hobbit")
-                        .author("J.R.R. Tolkien")
-                        .isbn("978-0547928227")
-                        .publishYear(1937)
-                        .genre("Fantasy")
-                        .available(true)
-                        .build()
-        );
-
-        Mono<Book> insertBook2 = bookRepository.save(
-                Book.builder()
-                        .title("1984")
-                        .author("George Orwell")
-                        .isbn("978-0451524935")
-                        .publishYear(1949)
-                        .genre("Dystopian")
-                        .available(true)
-                        .build()
-        );
-
-        // Execute setup
-        StepVerifier.create(createTable
-                        .then(deleteAll)
-                        .then(insertBook1)
-                        .then(insertBook2))
+        if (generatedFor != getClass()) {
+            // Recreate the schema from the same script the application uses, without its seeded books
+            Mono<Void> createSchema = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"))
+                    .populate(connectionFactory);
+
+            StepVerifier.create(createSchema
+                            .then(databaseClient.sql("DELETE FROM books").then())
+                            .then(generateBackground())
+                            .then(databaseClient.sql("SELECT COALESCE(MAX(id), 0) AS id FROM books")
+                                    .map(row -> row.get("id", Long.class))
+                                    .one()))
+                    .consumeNextWith(id -> lastGeneratedId = id)
+                    .verifyComplete();
+            generatedFor = getClass();
+        }
+
+        // Drop the test rows left by the previous test and insert them again. The seeded books were deleted,
+        // so ids 1 and 2 are free and keep the test rows ahead of the generated ones in id order.
+        Mono<Void> deleteTestRows = databaseClient.sql("DELETE FROM books WHERE id <= 2 OR id > :lastGeneratedId")
+                .bind("lastGeneratedId", lastGeneratedId)
+                .then();
+
+        Mono<Void> insertTestRows = databaseClient.sql("INSERT INTO books "
+                        + "(id, title, author, isbn, publish_year, genre, available) VALUES "
+                        + "(1, 'The Hobbit', 'J.R.R. Tolkien', 9780547928227, 1937, 'Fantasy', true), "
+                        + "(2, '1984', 'George Orwell', 9780451524935, 1949, 'Dystopian', true)")
+                .then();
+
+        StepVerifier.create(deleteTestRows.then(insertTestRows))
                 .verifyComplete();
     }
 
+    private Mono<Void> generateBackground() {
+        if (backgroundBooks() == 0) {
+            return Mono.empty();
+        }
+        LibraryProperties.Scale settings = new LibraryProperties.Scale();
+        settings.setBooks(backgroundBooks());
+        settings.setAuthors(Math.max(1, backgroundBooks() / 20));
+        return new CatalogGenerator(databaseClient, settings).generate().then();
+    }
+
     @Test
     void findAll_ShouldReturnAllBooks() {
         Flux<Book> allBooks = bookRepository.findAll();
 
         StepVerifier.create(allBooks.collectList())
-                .expectNextMatches(books -> books.size() == 2)
+                .expectNextMatches(books -> books.size() == 2 + backgroundBooks())
                 .verifyComplete();
     }
 
@@ -114,12 +137,159 @@ class BookRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findPage_ShouldSeekPastCursorInIdOrder() {
+        Flux<Book> page = bookRepository.findPage(0L, 1)
+                .next()
+                .flatMapMany(first -> bookRepository.findPage(first.getId(), 10));
+
+        StepVerifier.create(page)
+                .expectNextMatches(book -> book.getTitle().equals("1984"))
+                .expectNextCount(Math.min(9, backgroundBooks()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPage_WithColumns_ShouldLeaveUnselectedFieldsNull() {
+        StepVerifier.create(bookRepository.findPage(Set.of(BookColumn.TITLE), 0L, 1))
+                .expectNextMatches(book -> book.getId() != null
+                        && book.getTitle().equals("The Hobbit")
+                        && book.getAuthor() == null
+                        && book.getIsbn() == null
+                        && book.getAvailable() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllById_WithColumns_ShouldReadSelectedColumns() {
+        Flux<Book> books = bookRepository.findPage(0L, 10)
+                .map(Book::getId)
+                .collectList()
+                .flatMapMany(ids -> bookRepository.findAllById(Set.of(BookColumn.ISBN, BookColumn.AVAILABLE), ids));
+
+        StepVerifier.create(books.map(Book::getIsbn).collectList())
+                .expectNextMatches(isbns -> isbns.size() == Math.min(10, 2 + backgroundBooks()) && isbns.containsAll(List.of(9780547928227L, 9780451524935L)))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPageByAuthor_ShouldReturnMatchingBooks() {
+        StepVerifier.create(bookRepository.findPageByAuthor(BookColumn.ALL, "george orwell", 0L, 10))
+                .expectNextMatches(book -> book.getTitle().equals("1984"))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPageByGenre_ShouldRespectLimit() {
+        StepVerifier.create(bookRepository.findPageByGenre(BookColumn.ALL, "fantasy", 0L, 1))
+                .expectNextMatches(book -> book.getTitle().equals("The Hobbit"))
+                .verifyComplete();
+    }
+
+    @Test
+    void findByIsbn_ShouldReturnBookWithNormalizedIsbn() {
+        StepVerifier.create(bookRepository.findByIsbn(9780451524935L))
+                .expectNextMatches(book -> book.getTitle().equals("1984"))
+                .verifyComplete();
+    }
+
+    @Test
+    void save_WithExistingIsbn_ShouldViolateUniqueIndex() {
+        Book duplicate = Book.builder().title("Another Hobbit").author("J.R.R. Tolkien").isbn(9780547928227L).build();
+
+        StepVerifier.create(bookRepository.save(duplicate))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void findPagesByAuthorIds_ShouldReadOnePagePerAuthor() {
+        Flux<Book> books = authorRepository.findByName("J.R.R. Tolkien")
+                .flatMap(author -> bookRepository.saveAll(List.of(
+                                Book.builder().title("The Silmarillion").author(author.getName())
+                                        .isbn(9780544338012L).authorId(author.getId()).build(),
+                                Book.builder().title("Unfinished Tales").author(author.getName())
+                                        .isbn(9780544337992L).authorId(author.getId()).build()))
+                        .then(Mono.just(author.getId())))
+                .flatMapMany(authorId -> bookRepository.findPagesByAuthorIds(Set.of(BookColumn.TITLE),
+                        List.of(authorId, -1L), 0L, 1));
+
+        StepVerifier.create(books)
+                .expectNextMatches(book -> book.getTitle().equals("The Silmarillion") && book.getAuthorId() != null
+                        && book.getIsbn() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertAll_ShouldInsertBatchAndAssignIds() {
+        List<Book> books = List.of(
+                Book.builder().title("Batch One").author("Author A").isbn(9780000000019L).available(true).build(),
+                Book.builder().title("Batch Two").author("Author B").isbn(9780000000026L).available(true).build());
+
+        StepVerifier.create(bookRepository.insertAll(books).then(bookRepository.count()))
+                .expectNext(4L + backgroundBooks())
+                .verifyComplete();
+
+        StepVerifier.create(bookRepository.findById(books.get(1).getId()))
+                .expectNextMatches(book -> book.getTitle().equals("Batch Two"))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateAll_ShouldOnlyChangeNonNullFieldsAndCountRows() {
+        Flux<Long> rowCounts = bookRepository.findAll().collectList()
+                .flatMapMany(books -> bookRepository.updateAll(List.of(
+                        Book.builder().id(books.get(0).getId()).title("Renamed").available(null).build(),
+                        Book.builder().id(-1L).title("Missing").available(null).build())));
+
+        StepVerifier.create(rowCounts)
+                .expectNext(1L, 0L)
+                .verifyComplete();
+
+        StepVerifier.create(bookRepository.findByAuthorIgnoreCase("j.r.r. tolkien"))
+                .expectNextMatches(book -> book.getTitle().equals("Renamed") && book.getAvailable())
+                .verifyComplete();
+    }
+
+    @Test
+    void updateNonNullFields_ShouldReturnUpdatedRow() {
+        Mono<Book> updated = bookRepository.findAll().next()
+                .flatMap(book -> bookRepository.updateNonNullFields(
+                        Book.builder().id(book.getId()).title("Renamed").available(false).build()));
+
+        StepVerifier.create(updated)
+                .expectNextMatches(book -> book.getTitle().equals("Renamed")
+                        && !book.getAvailable()
+                        && book.getAuthor().equals("J.R.R. Tolkien"))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateNonNullFields_WhenBookDoesNotExist_ShouldBeEmpty() {
+        StepVerifier.create(bookRepository.updateNonNullFields(Book.builder().id(-1L).title("Missing").build()))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteAllByIdReturning_ShouldReturnDeletedRows() {
+        Flux<Book> deleted = bookRepository.findAll().map(Book::getId).collectList()
+                .flatMapMany(ids -> bookRepository.deleteAllByIdReturning(List.of(ids.get(0), -1L)));
+
+        StepVerifier.create(deleted)
+                .expectNextMatches(book -> book.getTitle().equals("The Hobbit"))
+                .verifyComplete();
+
+        StepVerifier.create(bookRepository.count())
+                .expectNext(1L + backgroundBooks())
+                .verifyComplete();
+    }
+
     @Test
     void save_ShouldCreateNewBook() {
         Book newBook = Book.builder()
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-1234567890")
+                .isbn(9781234567897L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
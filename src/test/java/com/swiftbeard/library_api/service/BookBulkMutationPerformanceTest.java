@@ -0,0 +1,104 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookResult;
+import com.swiftbeard.library_api.model.BulkBookResult;
+import com.swiftbeard.library_api.model.Isbn;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Creates, updates and deletes {@code bulkTest.rows} books (100,000 by default) through the bulk mutations
+ * of {@link BookService}, {@code bulkTest.requestSize} books per call, and fails if any of the three writes
+ * fewer than {@code bulkTest.minRowsPerSecond} rows per second (10,000 by default). The same mutations first
+ * run untimed over {@code bulkTest.warmupRows} books (20,000 by default), so the rates are not those of a cold
+ * JVM. Run with {@code ./gradlew performanceTest}.
+ */
+@Slf4j
+@Tag("performance")
+@SpringBootTest(properties = {
+        "logging.level.org.springframework.data.r2dbc=WARN",
+        "logging.level.io.r2dbc=WARN",
+        "logging.level.com.swiftbeard.library_api.service.BookService=WARN"
+})
+class BookBulkMutationPerformanceTest {
+
+    private static final int ROWS = Integer.getInteger("bulkTest.rows", 100_000);
+    private static final int REQUEST_SIZE = Integer.getInteger("bulkTest.requestSize", 5_000);
+    private static final int WARMUP_ROWS = Integer.getInteger("bulkTest.warmupRows", 20_000);
+    private static final double MIN_ROWS_PER_SECOND =
+            Double.parseDouble(System.getProperty("bulkTest.minRowsPerSecond", "10000"));
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void bulkMutations_ShouldWriteTensOfThousandsOfRowsPerSecond() {
+        writeAll(WARMUP_ROWS, 979_400_000_000L, 0);
+        writeAll(ROWS, 979_500_000_000L, MIN_ROWS_PER_SECOND);
+    }
+
+    private void writeAll(int rows, long firstIsbn, double minRowsPerSecond) {
+        List<Book> created = new ArrayList<>(rows);
+        write("createBooks", newBooks(rows, firstIsbn), bookService::createBooks, minRowsPerSecond,
+                result -> result.results().stream()
+                        .map(BookResult::book)
+                        .forEach(created::add));
+
+        List<Book> changes = created.stream()
+                .map(book -> Book.builder().id(book.getId()).title(book.getTitle() + " (revised)").available(false).build())
+                .toList();
+        write("updateBooks", changes, bookService::updateBooks, minRowsPerSecond, result -> { });
+
+        List<Long> ids = created.stream().map(Book::getId).toList();
+        write("deleteBooks", ids, bookService::deleteBooks, minRowsPerSecond, result -> { });
+    }
+
+    private <T> void write(String mutation, List<T> items, Function<List<T>, Publisher<BulkBookResult>> call,
+                           double minRowsPerSecond, Consumer<BulkBookResult> onResult) {
+        long start = System.nanoTime();
+        long written = Flux.fromIterable(items)
+                .buffer(REQUEST_SIZE)
+                .concatMap(call)
+                .doOnNext(onResult)
+                .map(result -> (long) result.succeeded())
+                .reduce(0L, Long::sum)
+                .block();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rowsPerSecond = items.size() / seconds;
+
+        log.info("{} wrote {} rows in {} s: {} rows/s", mutation, written, String.format("%.1f", seconds),
+                String.format("%,.0f", rowsPerSecond));
+        assertEquals((long) items.size(), written);
+        assertTrue(rowsPerSecond >= minRowsPerSecond,
+                () -> String.format("%s: %,.0f rows/s is below the %,.0f rows/s floor", mutation, rowsPerSecond, minRowsPerSecond));
+    }
+
+    private static List<Book> newBooks(int rows, long firstIsbn) {
+        List<Book> books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            books.add(Book.builder()
+                    .title("Bulk Book " + i)
+                    .author("Bulk Author " + i % 1_000)
+                    .isbn(Isbn.complete(firstIsbn + i))
+                    .publishYear(1900 + i % 125)
+                    .genre("Bulk Genre " + i % 20)
+                    .available(true)
+                    .build());
+        }
+        return books;
+    }
+}
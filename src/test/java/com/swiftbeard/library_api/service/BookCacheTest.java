@@ -0,0 +1,103 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookCache bookCache;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookCache = new BookCache(new LibraryProperties(), meterRegistry);
+        book = Book.builder().id(1L).title("Test Book").author("Test Author").isbn(9781234567897L).build();
+    }
+
+    @Test
+    void get_WhenConcurrentMisses_ShouldLoadOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<Book> pending = Sinks.one();
+
+        Mono<Book> first = bookCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return pending.asMono();
+        });
+        Mono<Book> second = bookCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return pending.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> pending.tryEmitValue(book))
+                .expectNextMatches(pair -> pair.getT1().equals(book) && pair.getT2().equals(book))
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, bookCache.stats().missCount());
+    }
+
+    @Test
+    void get_ShouldBeCountedInCacheMetrics() {
+        StepVerifier.create(bookCache.get(1L, id -> Mono.just(book)).then(bookCache.get(1L, id -> Mono.just(book))))
+                .expectNext(book)
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "books.by-id").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "books.by-id").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_WhenOneSubscriberCancels_ShouldStillCompleteForOthers() {
+        Sinks.One<Book> pending = Sinks.one();
+
+        bookCache.get(1L, id -> pending.asMono()).subscribe().dispose();
+
+        StepVerifier.create(bookCache.get(1L, id -> Mono.error(new IllegalStateException("second load"))))
+                .then(() -> pending.tryEmitValue(book))
+                .expectNext(book)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void get_WhenLoaderIsEmpty_ShouldNotCacheMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Mono<Book> lookup = bookCache.get(1L, id -> Mono.<Book>empty().doOnSubscribe(s -> loads.incrementAndGet()));
+
+        StepVerifier.create(lookup.then(lookup)).verifyComplete();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Mono<Book> lookup = bookCache.get(1L, id -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return book;
+        }));
+
+        StepVerifier.create(lookup.then(lookup)).expectNext(book).verifyComplete();
+        bookCache.invalidate(1L);
+        StepVerifier.create(lookup).expectNext(book).verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,86 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookChangePublisherTest {
+
+    @Test
+    void subscribe_ShouldOnlyEmitMatchingChanges() {
+        BookChangePublisher publisher = new BookChangePublisher(new LibraryProperties());
+
+        StepVerifier.create(publisher.subscribe("fantasy", null))
+                .then(() -> {
+                    publisher.publish(event(BookChangeType.CREATED, 1L, "Fantasy"));
+                    publisher.publish(event(BookChangeType.CREATED, 2L, "Science Fiction"));
+                    publisher.publish(event(BookChangeType.DELETED, 1L, "Fantasy"));
+                })
+                .expectNextMatches(event -> event.bookId() == 1L && event.type() == BookChangeType.CREATED)
+                .expectNextMatches(event -> event.bookId() == 1L && event.type() == BookChangeType.DELETED)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribe_WhenSubscriberIsSlow_ShouldDropOldestEvents() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.getSubscriptions().setBufferSize(2);
+        BookChangePublisher publisher = new BookChangePublisher(properties);
+
+        StepVerifier.create(publisher.subscribe(null, null), 0)
+                .then(() -> {
+                    for (long id = 1; id <= 5; id++) {
+                        publisher.publish(event(BookChangeType.CREATED, id, "Fantasy"));
+                    }
+                })
+                .thenRequest(10)
+                .expectNextMatches(event -> event.bookId() == 4L)
+                .expectNextMatches(event -> event.bookId() == 5L)
+                .thenCancel()
+                .verify();
+
+        assertEquals(3, publisher.droppedEvents());
+    }
+
+    @Test
+    void subscribe_WhenConflating_ShouldKeepLatestChangePerBook() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.getSubscriptions().setOverflowPolicy(LibraryProperties.Subscriptions.OverflowPolicy.CONFLATE);
+        BookChangePublisher publisher = new BookChangePublisher(properties);
+
+        StepVerifier.create(publisher.subscribe(null, null), 0)
+                .then(() -> {
+                    publisher.publish(event(BookChangeType.CREATED, 1L, "Fantasy"));
+                    publisher.publish(event(BookChangeType.CREATED, 2L, "Fantasy"));
+                    publisher.publish(event(BookChangeType.UPDATED, 1L, "Fantasy"));
+                })
+                .thenRequest(10)
+                .expectNextMatches(event -> event.bookId() == 1L && event.type() == BookChangeType.UPDATED)
+                .expectNextMatches(event -> event.bookId() == 2L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribe_ShouldUnregisterOnCancel() {
+        BookChangePublisher publisher = new BookChangePublisher(new LibraryProperties());
+
+        StepVerifier.create(publisher.subscribe(null, null))
+                .then(() -> assertEquals(1, publisher.subscriberCount()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, publisher.subscriberCount());
+    }
+
+    private static BookChangeEvent event(BookChangeType type, long id, String genre) {
+        Book book = Book.builder().id(id).title("Book " + id).author("Author").genre(genre).build();
+        return BookChangeEvent.of(type, book);
+    }
+}
@@ -0,0 +1,128 @@
+package com.swiftbeard.library_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.exception.InvalidImportException;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookResult;
+import com.swiftbeard.library_api.model.BulkBookResult;
+import com.swiftbeard.library_api.model.ImportProgress;
+import com.swiftbeard.library_api.model.ImportRejection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceTest {
+
+    @Mock
+    private BookService bookService;
+
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.getBulkImport().setBatchSize(2);
+        properties.getBulkImport().setConcurrency(2);
+        bookImportService = new BookImportService(bookService, properties, new ObjectMapper());
+    }
+
+    @Test
+    void importBooks_ShouldParseNdjsonAndReportRejectedLines() {
+        List<List<Book>> batches = new ArrayList<>();
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            batches.add(books);
+            List<BookResult> results = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                results.add(books.get(i).getTitle().isBlank()
+                        ? BookResult.failed(i, null, "Title is required")
+                        : BookResult.saved(i, books.get(i)));
+            }
+            return Mono.just(BulkBookResult.of(results));
+        });
+
+        Flux<String> lines = Flux.just(
+                "{\"title\":\"The Hobbit\",\"author\":\"J.R.R. Tolkien\",\"isbn\":\"0-547-92822-X\",\"publishYear\":1937}",
+                "{\"title\":\"1984\",\"author\":\"George Orwell\",\"isbn\":9780451524935,\"available\":false}",
+                "",
+                "{\"title\":\"Bad\",\"author\":\"Nobody\",\"isbn\":\"978-1234567890\"}",
+                "{\"title\":\" \",\"author\":\"Nobody\",\"isbn\":\"9781234567897\"}",
+                "not json");
+
+        StepVerifier.create(bookImportService.importBooks(lines, BookImportService.Format.NDJSON))
+                .expectNext(new ImportProgress(2, 2, 0, List.of(), false))
+                .expectNext(new ImportProgress(4, 2, 2, List.of(
+                        new ImportRejection(4, "Invalid ISBN: 978-1234567890"),
+                        new ImportRejection(5, "Title is required")), false))
+                .expectNextMatches(progress -> progress.processed() == 5
+                        && progress.rejected() == 3
+                        && progress.rejections().get(0).line() == 6
+                        && progress.rejections().get(0).error().startsWith("Malformed JSON"))
+                .expectNext(new ImportProgress(5, 2, 3, List.of(), true))
+                .verifyComplete();
+
+        Book hobbit = batches.get(0).get(0);
+        assertEquals(9780547928227L, hobbit.getIsbn());
+        assertEquals(1937, hobbit.getPublishYear());
+        assertFalse(batches.get(0).get(1).getAvailable());
+    }
+
+    @Test
+    void importBooks_ShouldReadCsvColumnsByHeader() {
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            return Mono.just(BulkBookResult.of(List.of(BookResult.saved(0, books.get(0)))));
+        });
+
+        Flux<String> lines = Flux.just(
+                "isbn,title,author,publish_year",
+                "9780547928227,\"Hobbit, The\",\"J.R.R. \"\"Ronald\"\" Tolkien\",1937");
+
+        StepVerifier.create(bookImportService.importBooks(lines, BookImportService.Format.CSV))
+                .expectNext(new ImportProgress(1, 1, 0, List.of(), false))
+                .expectNext(new ImportProgress(1, 1, 0, List.of(), true))
+                .verifyComplete();
+    }
+
+    @Test
+    void importBooks_WithoutRequiredCsvColumns_ShouldFail() {
+        StepVerifier.create(bookImportService.importBooks(Flux.just("title,genre"), BookImportService.Format.CSV))
+                .expectError(InvalidImportException.class)
+                .verify();
+    }
+
+    @Test
+    void importBooks_WhenBatchFails_ShouldRejectItsRows() {
+        when(bookService.createBooks(anyList())).thenReturn(Mono.error(new DuplicateKeyException("duplicate isbn")));
+
+        Flux<String> lines = Flux.just("{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"isbn\":\"9780441172719\"}");
+
+        StepVerifier.create(bookImportService.importBooks(lines, BookImportService.Format.NDJSON))
+                .expectNext(new ImportProgress(1, 0, 1, List.of(new ImportRejection(1, "Batch failed: duplicate isbn")), false))
+                .expectNext(new ImportProgress(1, 0, 1, List.of(), true))
+                .verifyComplete();
+    }
+
+    @Test
+    void splitCsv_ShouldUnquoteFields() {
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""), BookRecordParser.splitCsv("a,\"b,c\",\"say \"\"hi\"\"\",\"\""));
+        assertEquals(Arrays.asList("a", null, null), BookRecordParser.splitCsv("a,,"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times {@link BookSearchIndex} with {@code scaleTest.books} books (1,000,000 by default) over a vocabulary
+ * large enough that short prefixes expand to thousands of terms, with one word ("the") in every title.
+ * Each query and each removal must finish within {@code scaleTest.searchMillis} milliseconds.
+ * Run with {@code ./gradlew scaleTest}.
+ */
+@Tag("scale")
+class BookSearchIndexScaleTest {
+
+    private static final int BOOKS = Integer.getInteger("scaleTest.books", 1_000_000);
+    private static final long BUDGET_NANOS = Long.getLong("scaleTest.searchMillis", 50) * 1_000_000;
+    private static final int WORDS = 50_000;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private static final BookSearchIndex index = new BookSearchIndex();
+
+    @BeforeAll
+    static void buildIndex() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 4 + random.nextInt(6); word.length() < length; ) {
+                word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            words[i] = word.toString();
+        }
+        for (long id = 1; id <= BOOKS; id++) {
+            index.index(Book.builder()
+                    .id(id)
+                    .title("The " + words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)])
+                    .author(words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)])
+                    .genre(words[random.nextInt(200)])
+                    .build());
+        }
+    }
+
+    @Test
+    void search_WithShortAndCommonTokens_ShouldStayWithinBudget() {
+        List<String> queries = List.of("a", "th", "the", "abc", "the s", "the st", "ma ka", "the abc xyz");
+        // Let the JIT compile the search before timing it
+        for (int warmup = 0; warmup < 20; warmup++) {
+            queries.forEach(query -> index.search(query, 0, 20));
+        }
+
+        for (String query : queries) {
+            long started = System.nanoTime();
+            index.search(query, 0, 20);
+            long elapsed = System.nanoTime() - started;
+
+            assertTrue(elapsed < BUDGET_NANOS, () -> query + " took " + elapsed / 1_000_000 + " ms");
+        }
+    }
+
+    @Test
+    void remove_FromLongPostingLists_ShouldStayWithinBudget() {
+        for (long id = BOOKS / 2; id < BOOKS / 2 + 1_000; id++) {
+            long started = System.nanoTime();
+            index.remove(id);
+            long elapsed = System.nanoTime() - started;
+
+            long removed = id;
+            assertTrue(elapsed < BUDGET_NANOS, () -> "removing " + removed + " took " + elapsed / 1_000_000 + " ms");
+        }
+
+        assertEquals(BOOKS - 1_000, index.size());
+    }
+}
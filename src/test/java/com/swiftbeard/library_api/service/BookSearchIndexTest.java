@@ -0,0 +1,135 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(book(1L, "The Hobbit", "J.R.R. Tolkien", "Fantasy"));
+        index.index(book(2L, "1984", "George Orwell", "Dystopian"));
+        index.index(book(3L, "The Lord of the Rings", "J.R.R. Tolkien", "Fantasy"));
+        index.index(book(4L, "Animal Farm", "George Orwell", "Fantasy Satire"));
+    }
+
+    @Test
+    void search_ShouldMatchCaseInsensitively() {
+        assertEquals(List.of(1L), index.search("HOBBIT", 0, 10));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixes() {
+        assertEquals(List.of(1L, 3L), index.search("tolk", 0, 10));
+    }
+
+    @Test
+    void search_ShouldRequireEveryToken() {
+        assertEquals(List.of(4L), index.search("orwell fantasy", 0, 10));
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesAboveGenreMatches() {
+        index.index(book(5L, "Fantasy Worlds", "Someone Else", "Reference"));
+
+        assertEquals(5L, index.search("fantasy", 0, 10).get(0));
+    }
+
+    @Test
+    void search_ShouldPageThroughRankedResults() {
+        List<Long> all = index.search("the", 0, 10);
+
+        assertEquals(all.subList(1, 2), index.search("the", 1, 1));
+        assertTrue(index.search("the", 5, 10).isEmpty());
+    }
+
+    @Test
+    void load_WhenBookWasRemovedDuringLoad_ShouldNotIndexIt() {
+        index.beginLoad();
+        index.remove(1L);
+        index.load(book(1L, "The Hobbit", "J.R.R. Tolkien", "Fantasy"));
+        index.endLoad();
+
+        assertTrue(index.search("hobbit", 0, 10).isEmpty());
+    }
+
+    @Test
+    void load_WhenBookWasUpdatedDuringLoad_ShouldKeepUpdate() {
+        index.beginLoad();
+        index.index(book(1L, "There and Back Again", "J.R.R. Tolkien", "Fantasy"));
+        index.load(book(1L, "The Hobbit", "J.R.R. Tolkien", "Fantasy"));
+        index.load(book(5L, "The Silmarillion", "J.R.R. Tolkien", "Fantasy"));
+        index.endLoad();
+
+        assertTrue(index.search("hobbit", 0, 10).isEmpty());
+        assertEquals(List.of(1L), index.search("back again", 0, 10));
+        assertEquals(List.of(5L), index.search("silmarillion", 0, 10));
+    }
+
+    @Test
+    void index_WhenBookIsUpdated_ShouldReplacePreviousTerms() {
+        index.index(book(1L, "There and Back Again", "J.R.R. Tolkien", "Fantasy"));
+
+        assertTrue(index.search("hobbit", 0, 10).isEmpty());
+        assertEquals(List.of(1L), index.search("back again", 0, 10));
+    }
+
+    @Test
+    void remove_ShouldDropBookFromResults() {
+        index.remove(2L);
+
+        assertTrue(index.search("1984", 0, 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void search_WithShortToken_ShouldOnlyMatchWholeWords() {
+        index.index(book(5L, "Of Mice and Men", "John Steinbeck", "Fiction"));
+
+        assertEquals(List.of(3L, 5L), index.search("of", 0, 10));
+        assertTrue(index.search("ge", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldExpandPrefixToBoundedNumberOfTerms() {
+        for (int i = 0; i <= BookSearchIndex.MAX_PREFIX_TERMS; i++) {
+            index.index(book(100L + i, String.format("Zeta%04d", i), "Someone Else", "Reference"));
+        }
+        index.index(book(99L, "Zeta", "Someone Else", "Reference"));
+
+        List<Long> matches = index.search("zeta", 0, 1_000);
+
+        assertEquals(BookSearchIndex.MAX_PREFIX_TERMS + 1, matches.size());
+        assertEquals(99L, matches.get(0));
+        assertFalse(matches.contains(100L + BookSearchIndex.MAX_PREFIX_TERMS));
+    }
+
+    @Test
+    void remove_ShouldKeepOtherBooksOfSameTermsWhateverOrderTheyWereIndexedIn() {
+        index.index(book(9L, "The Silmarillion", "J.R.R. Tolkien", "Fantasy"));
+        index.index(book(7L, "Unfinished Tales", "J.R.R. Tolkien", "Fantasy"));
+        index.remove(3L);
+        index.remove(9L);
+
+        assertEquals(List.of(1L, 7L), index.search("tolkien", 0, 10));
+    }
+
+    @Test
+    void search_WithBlankQuery_ShouldReturnNothing() {
+        assertTrue(index.search("  -- ", 0, 10).isEmpty());
+    }
+
+    private static Book book(Long id, String title, String author, String genre) {
+        return Book.builder().id(id).title(title).author(author).isbn(9780000000002L).genre(genre).build();
+    }
+}
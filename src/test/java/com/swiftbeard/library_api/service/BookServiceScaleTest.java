@@ -0,0 +1,128 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookColumn;
+import com.swiftbeard.library_api.model.BookConnection;
+import com.swiftbeard.library_api.model.BookEdge;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Runs the paged and filtered reads of {@link BookService} end to end against the catalog the {@code scale}
+ * profile generates, with {@code scaleTest.books} books (100,000 by default). The other service tests mock
+ * the repository, so this is where a slow query shows up as a timeout. Run with {@code ./gradlew scaleTest}.
+ */
+@Tag("scale")
+@ActiveProfiles("scale")
+@SpringBootTest(properties = {
+        "library.scale.books=${scaleTest.books:100000}",
+        "library.scale.authors=5000",
+        "logging.level.org.springframework.data.r2dbc=WARN",
+        "logging.level.io.r2dbc=WARN"
+})
+class BookServiceScaleTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(Long.getLong("scaleTest.timeoutSeconds", 10));
+    private static final int PAGES = 50;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void getBooks_ShouldPageThroughCatalogInIdOrder() {
+        Flux<Long> ids = bookService.getBooks(100, null, BookColumn.ALL)
+                .expand(page -> page.pageInfo().hasNextPage()
+                        ? bookService.getBooks(100, page.pageInfo().endCursor(), BookColumn.ALL)
+                        : Mono.empty())
+                .take(PAGES)
+                .flatMapIterable(BookConnection::edges)
+                .map(BookEdge::node)
+                .map(Book::getId);
+
+        StepVerifier.create(ids.collectList())
+                .expectNextMatches(list -> list.size() == PAGES * 100 && isAscending(list))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void getBooksByAuthor_ShouldReturnEveryBookOfMostProlificAuthor() {
+        String author = mostFrequent("author");
+        long expected = count("author", author);
+
+        StepVerifier.create(bookService.getBooksByAuthor(author.toLowerCase()).count())
+                .expectNext(expected)
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void exportBooks_ByGenre_ShouldStreamEveryBookOfLargestGenre() {
+        String genre = mostFrequent("genre");
+        long expected = count("genre", genre);
+
+        StepVerifier.create(bookService.exportBooks(null, genre, 1_000).count())
+                .expectNext(expected)
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void exportBooks_ByAuthorAndGenre_ShouldMatchBothFilters() {
+        String author = mostFrequent("author");
+        String genre = databaseClient.sql("SELECT genre FROM books WHERE author = :author "
+                        + "GROUP BY genre ORDER BY COUNT(*) DESC LIMIT 1")
+                .bind("author", author)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block();
+        Long expected = databaseClient.sql("SELECT COUNT(*) FROM books WHERE author = :author AND genre = :genre")
+                .bind("author", author)
+                .bind("genre", genre)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+
+        StepVerifier.create(bookService.exportBooks(author, genre, 1_000).count())
+                .expectNext(expected)
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    private String mostFrequent(String column) {
+        return databaseClient.sql("SELECT " + column + " FROM books GROUP BY " + column + " ORDER BY COUNT(*) DESC LIMIT 1")
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block();
+    }
+
+    private long count(String column, String value) {
+        return databaseClient.sql("SELECT COUNT(*) FROM books WHERE " + column + " = :value")
+                .bind("value", value)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+    }
+
+    private static boolean isAscending(List<Long> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            if (ids.get(i) <= ids.get(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,21 +1,45 @@
 package com.swiftbeard.library_api.service;
 
+import com.swiftbeard.library_api.config.LibraryProperties;
 import com.swiftbeard.library_api.exception.BookNotFoundException;
+import com.swiftbeard.library_api.exception.InvalidPageRequestException;
+import com.swiftbeard.library_api.model.Author;
 import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import com.swiftbeard.library_api.model.BookColumn;
+import com.swiftbeard.library_api.model.BookConnection;
+import com.swiftbeard.library_api.model.BookCursor;
+import com.swiftbeard.library_api.model.Genre;
+import com.swiftbeard.library_api.repository.AuthorRepository;
 import com.swiftbeard.library_api.repository.BookRepository;
+import com.swiftbeard.library_api.repository.GenreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,18 +49,33 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
-    @InjectMocks
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    private BookSearchIndex bookSearchIndex;
+    private BookChangePublisher bookChangePublisher;
+    private final List<BookChangeEvent> notifiedChanges = new ArrayList<>();
     private BookService bookService;
 
     private Book book;
 
     @BeforeEach
     void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        bookSearchIndex = new BookSearchIndex();
+        bookChangePublisher = new BookChangePublisher(properties);
+        bookService = new BookService(bookRepository, authorRepository, genreRepository,
+                new BookCache(properties, new SimpleMeterRegistry()), new InFlightReads(), bookSearchIndex, new BookValidator(), bookChangePublisher,
+                List.of(notifiedChanges::add));
+
         book = Book.builder()
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
-                .isbn("978-1234567890")
+                .isbn(9781234567897L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
@@ -70,6 +109,55 @@ class BookServiceTest {
                 .verify();
     }
 
+    @Test
+    void getBookByIsbn_WhenBookExists_ShouldReturnBook() {
+        when(bookRepository.findByIsbn(9781234567897L)).thenReturn(Mono.just(book));
+
+        StepVerifier.create(bookService.getBookByIsbn(9781234567897L))
+                .expectNext(book)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBookByIsbn_WhenBookDoesNotExist_ShouldThrowException() {
+        when(bookRepository.findByIsbn(9781234567897L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookService.getBookByIsbn(9781234567897L))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getBookById_WhenCached_ShouldNotHitRepositoryAgain() {
+        when(bookRepository.findById(anyLong())).thenReturn(Mono.just(book));
+
+        StepVerifier.create(bookService.getBookById(1L).then(bookService.getBookById(1L)))
+                .expectNext(book)
+                .verifyComplete();
+
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getBookById_AfterUpdate_ShouldReloadFromRepository() {
+        stubReferences();
+        Book updatedBook = Book.builder()
+                .id(1L)
+                .title("Updated Book")
+                .author("Test Author")
+                .isbn(9781234567897L)
+                .build();
+
+        when(bookRepository.findById(anyLong())).thenReturn(Mono.just(book), Mono.just(updatedBook));
+        when(bookRepository.updateNonNullFields(any(Book.class))).thenReturn(Mono.just(updatedBook));
+
+        StepVerifier.create(bookService.getBookById(1L)
+                        .then(bookService.updateBook(updatedBook))
+                        .then(bookService.getBookById(1L)))
+                .expectNext(updatedBook)
+                .verifyComplete();
+    }
+
     @Test
     void getBooksByAuthor_ShouldReturnBooksByAuthor() {
         when(bookRepository.findByAuthorIgnoreCase(anyString())).thenReturn(Flux.just(book));
@@ -88,8 +176,256 @@ class BookServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getBooks_WhenMoreRowsThanPageSize_ShouldReturnPageWithNextCursor() {
+        Book next = Book.builder().id(2L).title("Next Book").author("Test Author").isbn(9781234567897L).build();
+        when(bookRepository.findPage(BookColumn.ALL, 0L, 2)).thenReturn(Flux.just(book, next));
+
+        StepVerifier.create(bookService.getBooks(1, null, BookColumn.ALL))
+                .expectNextMatches(page -> page.edges().size() == 1
+                        && page.edges().get(0).node().equals(book)
+                        && page.pageInfo().hasNextPage()
+                        && !page.pageInfo().hasPreviousPage()
+                        && page.pageInfo().endCursor().equals(BookCursor.encode(1L)))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooks_ShouldSelectOnlyRequestedColumns() {
+        Set<BookColumn> columns = Set.of(BookColumn.ID, BookColumn.TITLE);
+        Book projected = Book.builder().id(1L).title("Test Book").available(null).build();
+        when(bookRepository.findPage(columns, 0L, 21)).thenReturn(Flux.just(projected));
+
+        StepVerifier.create(bookService.getBooks(null, null, columns))
+                .expectNextMatches(page -> page.edges().get(0).node().equals(projected))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooks_WithCursor_ShouldSeekPastCursorId() {
+        when(bookRepository.findPage(BookColumn.ALL, 1L, 21)).thenReturn(Flux.empty());
+
+        StepVerifier.create(bookService.getBooks(null, BookCursor.encode(1L), BookColumn.ALL))
+                .expectNextMatches(page -> page.edges().isEmpty()
+                        && !page.pageInfo().hasNextPage()
+                        && page.pageInfo().hasPreviousPage())
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooks_WithInvalidCursor_ShouldThrowException() {
+        StepVerifier.create(bookService.getBooks(10, "not-a-cursor", BookColumn.ALL))
+                .expectError(InvalidPageRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void getBooks_WithNonPositiveFirst_ShouldThrowException() {
+        StepVerifier.create(bookService.getBooks(0, null, BookColumn.ALL))
+                .expectError(InvalidPageRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void getBooksByAuthor_WithPaging_ShouldReturnPage() {
+        when(bookRepository.findPageByAuthor(BookColumn.ALL, "Test Author", 0L, 11)).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.getBooksByAuthor("Test Author", 10, null, BookColumn.ALL))
+                .expectNextMatches(page -> page.edges().size() == 1 && !page.pageInfo().hasNextPage())
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksByGenre_WithPaging_ShouldReturnPage() {
+        when(bookRepository.findPageByGenre(BookColumn.ALL, "Test", 0L, 11)).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.getBooksByGenre("Test", 10, null, BookColumn.ALL))
+                .expectNextMatches(page -> page.edges().size() == 1 && !page.pageInfo().hasNextPage())
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksByGenre_ConcurrentIdenticalReads_ShouldShareOneQuery() {
+        Sinks.One<Book> row = Sinks.one();
+        when(bookRepository.findPageByGenre(BookColumn.ALL, "Test", 0L, 11)).thenReturn(row.asMono().flux());
+
+        CompletableFuture<BookConnection> first = bookService.getBooksByGenre("Test", 10, null, BookColumn.ALL).toFuture();
+        CompletableFuture<BookConnection> second = bookService.getBooksByGenre("test", 10, null, BookColumn.ALL).toFuture();
+        row.tryEmitValue(book);
+
+        assertEquals(1, first.join().edges().size());
+        assertEquals(1, second.join().edges().size());
+        verify(bookRepository, times(1)).findPageByGenre(BookColumn.ALL, "Test", 0L, 11);
+    }
+
+    @Test
+    void exportBooks_ShouldReadKeysetPagesUntilAShortOne() {
+        Book second = Book.builder().id(2L).title("Second").author("Test Author").isbn(9780547928227L).genre("Other").build();
+        Book third = Book.builder().id(3L).title("Third").author("Test Author").isbn(9780451524935L).genre("test").build();
+        when(bookRepository.findPageByAuthor(BookColumn.ALL, "Test Author", 0L, 2)).thenReturn(Flux.just(book, second));
+        when(bookRepository.findPageByAuthor(BookColumn.ALL, "Test Author", 2L, 2)).thenReturn(Flux.just(third));
+
+        StepVerifier.create(bookService.exportBooks("Test Author", "Test", 2))
+                .expectNext(book, third)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchBooks_ShouldReturnMatchesInRankedOrder() {
+        Book other = Book.builder().id(2L).title("Another Test").author("Someone").isbn(9781234567897L).build();
+        bookSearchIndex.index(book);
+        bookSearchIndex.index(other);
+        when(bookRepository.findAllById(BookColumn.ALL, List.of(1L, 2L))).thenReturn(Flux.just(other, book));
+
+        StepVerifier.create(bookService.searchBooks("test", 10, null, BookColumn.ALL))
+                .expectNextMatches(page -> page.edges().size() == 2
+                        && page.edges().get(0).node().equals(book)
+                        && page.edges().get(1).node().equals(other))
+                .verifyComplete();
+    }
+
+    @Test
+    void createBook_ShouldAddBookToSearchIndex() {
+        stubReferences();
+        when(bookRepository.save(any(Book.class))).thenReturn(Mono.just(book));
+
+        StepVerifier.create(bookService.createBook(book))
+                .expectNext(book)
+                .verifyComplete();
+
+        assertEquals(List.of(1L), bookSearchIndex.search("test book", 0, 10));
+    }
+
+    @Test
+    void createBook_WhenAuthorIsNew_ShouldCreateAuthorAndReference() {
+        when(authorRepository.findByName("Test Author")).thenReturn(Mono.empty());
+        when(authorRepository.save(any(Author.class))).thenReturn(Mono.just(new Author(7L, "Test Author")));
+        when(genreRepository.findByName("Test")).thenReturn(Mono.just(new Genre(3L, "Test")));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(bookService.createBook(book))
+                .expectNextMatches(saved -> saved.getAuthorId().equals(7L) && saved.getGenreId().equals(3L))
+                .verifyComplete();
+    }
+
+    @Test
+    void getAuthorsOf_ShouldResolveAuthorsInOneLookup() {
+        Author author = new Author(7L, "Test Author");
+        book.setAuthorId(7L);
+        Book orphan = Book.builder().id(2L).title("Orphan").author("Nobody").isbn(9781234567897L).build();
+        when(authorRepository.findAllById(Set.of(7L))).thenReturn(Flux.just(author));
+
+        StepVerifier.create(bookService.getAuthorsOf(List.of(book, orphan)))
+                .expectNext(Map.of(book, author))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksOfAuthors_ShouldReadOnePagePerAuthor() {
+        Book second = Book.builder().id(2L).title("Second").author("Test Author").isbn(9781234567897L).authorId(7L).build();
+        book.setAuthorId(7L);
+        when(bookRepository.findPagesByAuthorIds(BookColumn.ALL, Set.of(7L, 8L), 0L, 2))
+                .thenReturn(Flux.just(book, second));
+
+        StepVerifier.create(bookService.getBooksOfAuthors(Set.of(7L, 8L), 1, null, BookColumn.ALL))
+                .assertNext(pages -> {
+                    assertEquals(List.of(1L), pages.get(7L).edges().stream().map(edge -> edge.node().getId()).toList());
+                    assertTrue(pages.get(7L).pageInfo().hasNextPage());
+                    assertTrue(pages.get(8L).edges().isEmpty());
+                    assertFalse(pages.get(8L).pageInfo().hasNextPage());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void createBooks_ShouldInsertValidBooksAndReportInvalidOnes() {
+        Book invalid = Book.builder().title(" ").author("Test Author").isbn(9781234567897L).build();
+        when(authorRepository.findByNameIn(Set.of("Test Author"))).thenReturn(Flux.just(new Author(7L, "Test Author")));
+        when(genreRepository.findByNameIn(Set.of("Test"))).thenReturn(Flux.just(new Genre(3L, "Test")));
+        when(bookRepository.findByIsbnIn(List.of(9781234567897L))).thenReturn(Flux.empty());
+        when(bookRepository.insertAll(List.of(book))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.createBooks(List.of(invalid, book)))
+                .expectNextMatches(result -> result.succeeded() == 1
+                        && result.failed() == 1
+                        && result.results().get(0).error().equals("Title is required")
+                        && result.results().get(1).book().equals(book)
+                        && book.getAuthorId().equals(7L))
+                .verifyComplete();
+
+        assertEquals(List.of(1L), bookSearchIndex.search("test book", 0, 10));
+    }
+
+    @Test
+    void createBooks_ShouldRejectDuplicateIsbns() {
+        Book stored = Book.builder().title("Stored").author("Test Author").isbn(9780547928227L).build();
+        Book repeated = Book.builder().title("Repeated").author("Test Author").isbn(9781234567897L).build();
+        when(bookRepository.findByIsbnIn(List.of(9780547928227L, 9781234567897L)))
+                .thenReturn(Flux.just(Book.builder().id(5L).isbn(9780547928227L).build()));
+        when(authorRepository.findByNameIn(Set.of("Test Author"))).thenReturn(Flux.just(new Author(7L, "Test Author")));
+        when(genreRepository.findByNameIn(Set.of("Test"))).thenReturn(Flux.just(new Genre(3L, "Test")));
+        when(bookRepository.insertAll(List.of(book))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.createBooks(List.of(stored, book, repeated)))
+                .expectNextMatches(result -> result.succeeded() == 1
+                        && result.results().get(0).error().equals("Book already exists with ISBN: 9780547928227")
+                        && result.results().get(1).book().equals(book)
+                        && result.results().get(2).error().equals("Duplicate ISBN in request: 9781234567897"))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateBooks_ShouldReportBooksThatDoNotExist() {
+        Book missing = Book.builder().id(99L).available(false).build();
+        Book change = Book.builder().id(1L).available(false).build();
+        when(bookRepository.updateAll(List.of(missing, change))).thenReturn(Flux.just(0L, 1L));
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.updateBooks(List.of(missing, change)))
+                .expectNextMatches(result -> result.succeeded() == 1
+                        && result.results().get(0).error().equals("Book not found with id: 99")
+                        && result.results().get(1).book().equals(book))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateBooks_ShouldRejectIsbnConflictsAndApplyTheRest() {
+        Book taken = Book.builder().id(1L).isbn(9780547928227L).build();
+        Book unchanged = Book.builder().id(2L).isbn(9781234567897L).build();
+        Book repeated = Book.builder().id(3L).isbn(9781234567897L).build();
+        Book change = Book.builder().id(4L).available(false).build();
+        Book second = Book.builder().id(2L).title("Second").author("Test Author").isbn(9781234567897L).build();
+        Book fourth = Book.builder().id(4L).title("Fourth").author("Test Author").isbn(9780306406157L).build();
+        when(bookRepository.findByIsbnIn(List.of(9780547928227L, 9781234567897L)))
+                .thenReturn(Flux.just(Book.builder().id(5L).isbn(9780547928227L).build(),
+                        Book.builder().id(2L).isbn(9781234567897L).build()));
+        when(bookRepository.updateAll(List.of(unchanged, change))).thenReturn(Flux.just(1L, 1L));
+        when(bookRepository.findAllById(List.of(2L, 4L))).thenReturn(Flux.just(second, fourth));
+
+        StepVerifier.create(bookService.updateBooks(List.of(taken, unchanged, repeated, change)))
+                .expectNextMatches(result -> result.succeeded() == 2
+                        && result.failed() == 2
+                        && result.results().get(0).error().equals("Book already exists with ISBN: 9780547928227")
+                        && result.results().get(1).book().equals(second)
+                        && result.results().get(2).error().equals("Duplicate ISBN in request: 9781234567897")
+                        && result.results().get(3).book().equals(fourth))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteBooks_ShouldReportBooksThatDoNotExist() {
+        when(bookRepository.deleteAllByIdReturning(List.of(1L, 2L))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.deleteBooks(List.of(1L, 2L)))
+                .expectNextMatches(result -> result.succeeded() == 1
+                        && result.results().get(0).id().equals(1L)
+                        && result.results().get(1).error().equals("Book not found with id: 2"))
+                .verifyComplete();
+    }
+
     @Test
     void createBook_ShouldCreateAndReturnBook() {
+        stubReferences();
         when(bookRepository.save(any(Book.class))).thenReturn(Mono.just(book));
 
         StepVerifier.create(bookService.createBook(book))
@@ -99,27 +435,42 @@ class BookServiceTest {
 
     @Test
     void updateBook_WhenBookExists_ShouldUpdateAndReturnBook() {
+        stubReferences();
         Book updatedBook = Book.builder()
                 .id(1L)
                 .title("Updated Book")
                 .author("Test Author")
-                .isbn("978-1234567890")
+                .isbn(9781234567897L)
                 .publishYear(2023)
                 .genre("Test")
                 .available(true)
                 .build();
 
-        when(bookRepository.findById(anyLong())).thenReturn(Mono.just(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(Mono.just(updatedBook));
+        when(bookRepository.updateNonNullFields(any(Book.class))).thenReturn(Mono.just(updatedBook));
 
         StepVerifier.create(bookService.updateBook(updatedBook))
                 .expectNext(updatedBook)
                 .verifyComplete();
+
+        verify(bookRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void updateBook_ShouldOnlySendChangedFields() {
+        Book change = Book.builder().id(1L).available(false).build();
+        when(bookRepository.updateNonNullFields(change)).thenReturn(Mono.just(book));
+
+        StepVerifier.create(bookService.updateBook(change))
+                .expectNext(book)
+                .verifyComplete();
+
+        verify(authorRepository, never()).findByName(anyString());
     }
 
     @Test
     void updateBook_WhenBookDoesNotExist_ShouldThrowException() {
-        when(bookRepository.findById(anyLong())).thenReturn(Mono.empty());
+        stubReferences();
+        when(bookRepository.updateNonNullFields(any(Book.class))).thenReturn(Mono.empty());
 
         StepVerifier.create(bookService.updateBook(book))
                 .expectError(BookNotFoundException.class)
@@ -128,20 +479,51 @@ class BookServiceTest {
 
     @Test
     void deleteBook_WhenBookExists_ShouldReturnTrue() {
-        when(bookRepository.findById(anyLong())).thenReturn(Mono.just(book));
-        when(bookRepository.delete(any(Book.class))).thenReturn(Mono.empty());
+        when(bookRepository.deleteAllByIdReturning(List.of(1L))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.deleteBook(1L))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteBook_ShouldNotifyListenersWithDeletedRow() {
+        when(bookRepository.deleteAllByIdReturning(List.of(1L))).thenReturn(Flux.just(book));
 
         StepVerifier.create(bookService.deleteBook(1L))
                 .expectNext(true)
                 .verifyComplete();
+
+        assertEquals(List.of(BookChangeEvent.of(BookChangeType.DELETED, book)), notifiedChanges);
     }
 
     @Test
     void deleteBook_WhenBookDoesNotExist_ShouldThrowException() {
-        when(bookRepository.findById(anyLong())).thenReturn(Mono.empty());
+        when(bookRepository.deleteAllByIdReturning(List.of(1L))).thenReturn(Flux.empty());
 
         StepVerifier.create(bookService.deleteBook(1L))
                 .expectError(BookNotFoundException.class)
                 .verify();
     }
+
+    @Test
+    void getBookChanges_ShouldEmitCommittedChangesMatchingFilter() {
+        stubReferences();
+        Book other = Book.builder().id(2L).title("Other").author("Someone Else").genre("Test").build();
+        when(bookRepository.save(any(Book.class))).thenReturn(Mono.just(other), Mono.just(book));
+        when(bookRepository.deleteAllByIdReturning(List.of(1L))).thenReturn(Flux.just(book));
+
+        StepVerifier.create(bookService.getBookChanges("test", "test author"))
+                .then(() -> bookService.createBook(other).then(bookService.createBook(book)).block())
+                .expectNextMatches(event -> event.type() == BookChangeType.CREATED && event.book().equals(book))
+                .then(() -> bookService.deleteBook(1L).block())
+                .expectNextMatches(event -> event.type() == BookChangeType.DELETED && event.bookId().equals(1L))
+                .thenCancel()
+                .verify();
+    }
+
+    private void stubReferences() {
+        lenient().when(authorRepository.findByName(anyString())).thenReturn(Mono.just(new Author(7L, "Test Author")));
+        lenient().when(genreRepository.findByName(anyString())).thenReturn(Mono.just(new Genre(3L, "Test")));
+    }
 }
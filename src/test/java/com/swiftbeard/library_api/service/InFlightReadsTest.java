@@ -0,0 +1,146 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.ReadWriteRoutingConnectionFactory;
+import com.swiftbeard.library_api.model.Book;
+import com.swiftbeard.library_api.model.BookChangeEvent;
+import com.swiftbeard.library_api.model.BookChangeType;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+import reactor.util.context.Context;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class InFlightReadsTest {
+
+    private static final Set<String> TAGS = Set.of(BookTags.author("Tolkien"));
+
+    private final InFlightReads inFlightReads = new InFlightReads();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @Test
+    void share_ConcurrentCallers_ShouldRunReadOnce() {
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = inFlightReads.share("key", TAGS, () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> second = inFlightReads.share("key", TAGS, () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> other = inFlightReads.share("other", TAGS, () -> read(Mono.just("other"))).toFuture();
+        result.tryEmitValue("value");
+
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+        assertEquals("other", other.join());
+        assertEquals(2, reads.get());
+        assertEquals(1, inFlightReads.sharedReads());
+    }
+
+    @Test
+    void share_CallerCancelling_ShouldNotCancelReadForOthers() {
+        Sinks.One<String> result = Sinks.one();
+        PublisherProbe<String> probe = PublisherProbe.of(result.asMono());
+
+        Disposable cancelled = inFlightReads.share("key", TAGS, probe::mono).subscribe();
+        CompletableFuture<String> waiting = inFlightReads.share("key", TAGS, probe::mono).toFuture();
+        cancelled.dispose();
+        result.tryEmitValue("value");
+
+        assertEquals("value", waiting.join());
+        probe.assertWasNotCancelled();
+    }
+
+    @Test
+    void share_AfterReadCompleted_ShouldRunReadAgain() {
+        StepVerifier.create(inFlightReads.share("key", TAGS, () -> read(Mono.just("first"))))
+                .expectNext("first")
+                .verifyComplete();
+        StepVerifier.create(inFlightReads.share("key", TAGS, () -> read(Mono.<String>empty())))
+                .verifyComplete();
+        StepVerifier.create(inFlightReads.share("key", TAGS, () -> read(Mono.just("third"))))
+                .expectNext("third")
+                .verifyComplete();
+
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    void share_WhenReadFails_ShouldFailEveryCaller() {
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = inFlightReads.share("key", TAGS, () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> second = inFlightReads.share("key", TAGS, () -> read(result.asMono())).toFuture();
+        result.tryEmitError(new IllegalStateException("boom"));
+
+        StepVerifier.create(Mono.fromFuture(first)).expectError(IllegalStateException.class).verify();
+        StepVerifier.create(Mono.fromFuture(second)).expectError(IllegalStateException.class).verify();
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void share_ShouldRunReadUnderFirstCallersContext() {
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = inFlightReads.share("key", TAGS,
+                        () -> Mono.deferContextual(context -> read(result.asMono().map(value -> value + context.get("caller")))))
+                .contextWrite(Context.of("caller", "first"))
+                .toFuture();
+        CompletableFuture<String> second = inFlightReads.share("key", TAGS, () -> read(Mono.just("unused")))
+                .contextWrite(Context.of("caller", "second"))
+                .toFuture();
+        result.tryEmitValue("value-");
+
+        assertEquals("value-first", first.join());
+        assertEquals("value-first", second.join());
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void share_ClientInsideReadYourWritesWindow_ShouldRunOwnRead() {
+        Sinks.One<String> result = Sinks.one();
+        Context pinned = Context.of(ReadWriteRoutingConnectionFactory.Session.class,
+                new ReadWriteRoutingConnectionFactory.Session(System.currentTimeMillis() + 60_000));
+
+        CompletableFuture<String> other = inFlightReads.share("key", TAGS, () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> own = inFlightReads.share("key", TAGS, () -> read(Mono.just("own")))
+                .contextWrite(pinned)
+                .toFuture();
+
+        assertEquals("own", own.join());
+        result.tryEmitValue("shared");
+        assertEquals("shared", other.join());
+        assertEquals(2, reads.get());
+        assertEquals(0, inFlightReads.sharedReads());
+    }
+
+    @Test
+    void onBookChanged_ShouldStartNewReadForLaterCallersOfAffectedReads() {
+        Sinks.One<String> before = Sinks.one();
+        Sinks.One<String> unaffected = Sinks.one();
+
+        CompletableFuture<String> stale = inFlightReads.share("key", TAGS, () -> read(before.asMono())).toFuture();
+        inFlightReads.share("genre", Set.of(BookTags.genre("Poetry")), () -> read(unaffected.asMono())).subscribe();
+        inFlightReads.onBookChanged(BookChangeEvent.of(BookChangeType.UPDATED,
+                Book.builder().id(1L).author("TOLKIEN").genre("Fantasy").isbn(9780544003415L).build()));
+        CompletableFuture<String> fresh = inFlightReads.share("key", TAGS, () -> read(Mono.just("after"))).toFuture();
+        inFlightReads.share("genre", Set.of(BookTags.genre("Poetry")), () -> read(Mono.just("unused"))).subscribe();
+
+        assertEquals("after", fresh.join());
+        assertFalse(stale.isDone());
+        before.tryEmitValue("before");
+        assertEquals("before", stale.join());
+        assertEquals(3, reads.get());
+        assertEquals(1, inFlightReads.sharedReads());
+    }
+
+    private <T> Mono<T> read(Mono<T> result) {
+        reads.incrementAndGet();
+        return result;
+    }
+}
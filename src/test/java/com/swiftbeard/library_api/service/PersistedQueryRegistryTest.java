@@ -0,0 +1,62 @@
+package com.swiftbeard.library_api.service;
+
+import com.swiftbeard.library_api.config.LibraryProperties;
+import com.swiftbeard.library_api.exception.PersistedQueryException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistedQueryRegistryTest {
+
+    private static final String QUERY = "query Books { books { edges { node { title } } } }";
+
+    private final PersistedQueryRegistry registry =
+            new PersistedQueryRegistry(new LibraryProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void resolve_WithoutExtension_ShouldReturnBodyUnchanged() {
+        Map<String, Object> body = Map.of("query", QUERY);
+
+        assertSame(body, registry.resolve(body));
+    }
+
+    @Test
+    void resolve_ShouldRegisterQueryAndThenResolveHashAlone() {
+        String hash = PersistedQueryRegistry.sha256(QUERY);
+        registry.resolve(Map.of("query", QUERY, "extensions", persistedQuery(hash)));
+
+        Map<String, Object> resolved = registry.resolve(Map.of(
+                "variables", Map.of("first", 5), "extensions", persistedQuery(hash.toUpperCase())));
+
+        assertEquals(QUERY, resolved.get("query"));
+        assertEquals(Map.of("first", 5), resolved.get("variables"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void resolve_WhenHashIsUnknown_ShouldAskForTheQuery() {
+        PersistedQueryException e = assertThrows(PersistedQueryException.class,
+                () -> registry.resolve(Map.of("extensions", persistedQuery(PersistedQueryRegistry.sha256(QUERY)))));
+
+        assertEquals(PersistedQueryException.NOT_FOUND, e.getCode());
+        assertEquals("PersistedQueryNotFound", e.getMessage());
+    }
+
+    @Test
+    void resolve_WhenHashDoesNotMatchQuery_ShouldNotRegister() {
+        PersistedQueryException e = assertThrows(PersistedQueryException.class,
+                () -> registry.resolve(Map.of("query", QUERY, "extensions", persistedQuery("0".repeat(64)))));
+
+        assertEquals(PersistedQueryException.HASH_MISMATCH, e.getCode());
+        assertEquals(0, registry.size());
+    }
+
+    private static Map<String, Object> persistedQuery(String hash) {
+        return Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash));
+    }
+}